@@ -15,6 +15,7 @@ import com.denizenscript.denizencore.scripts.queues.core.TimedQueue;
 import com.denizenscript.denizencore.tags.Attribute;
 import com.denizenscript.denizencore.tags.ReplaceableTagEvent;
 import com.denizenscript.denizencore.tags.TagManager;
+import com.denizenscript.denizencore.utilities.CoreConfiguration;
 import com.denizenscript.denizencore.utilities.CoreUtilities;
 import com.denizenscript.denizencore.utilities.PropertyMatchHelper;
 import com.denizenscript.denizencore.utilities.ReflectionHelper;
@@ -169,7 +170,12 @@ public class DenizenCore {
         ShutdownScriptEvent.instance.fire();
         saveAll(true);
         logInterceptor.standardOutput();
+        // These must stop before the core commands are disabled, as that shuts down the log appender they may write to
+        ExecutionTracer.stop();
+        ScriptSampler.stop();
+        StallWatchdog.stop();
         commandRegistry.disableCoreMembers();
+        DebugOutputThread.shutdown();
     }
 
     /**
@@ -206,7 +212,9 @@ public class DenizenCore {
     public static void postLoadScripts() {
         try {
             TagManager.preCalced.clear();
+            TagManager.preCalced.setMaxSize(CoreConfiguration.tagParseCacheSize);
             Attribute.attribsLookup.clear();
+            Attribute.attribsLookup.setMaxSize(CoreConfiguration.tagAttributeCacheSize);
             ReplaceableTagEvent.refs.clear();
             ScriptRegistry.postLoadScripts();
             for (ScriptContainer container : ScriptRegistry.scriptContainers.values()) {
@@ -259,13 +267,13 @@ public class DenizenCore {
             run.run();
         }
         else {
-            schedule(new OneTimeSchedulable(run, 0));
+            schedule(new OneTimeSchedulable(ExecutionTracer.wrapHandoff("runOnMainThread", run), 0));
         }
     }
 
     /** Runs the task on a separate thread. */
     public static void runAsync(Runnable run) {
-        AsyncSchedulable.executor.execute(run);
+        AsyncSchedulable.executor.execute(ExecutionTracer.wrapHandoff("runAsync", run));
     }
 
     /**
@@ -287,6 +295,34 @@ public class DenizenCore {
      * @param ms_elapsed how many MS have actually elapsed. (50 on a standard engine).
      */
     public static void tick(int ms_elapsed) {
+        if (StallWatchdog.enabled) {
+            StallWatchdog.tickStartNanos = System.nanoTime();
+            try {
+                tickTraced(ms_elapsed);
+            }
+            finally {
+                StallWatchdog.tickStartNanos = 0;
+            }
+            return;
+        }
+        tickTraced(ms_elapsed);
+    }
+
+    static void tickTraced(int ms_elapsed) {
+        if (ExecutionTracer.enabled) {
+            long start = System.nanoTime();
+            try {
+                tickInternal(ms_elapsed);
+            }
+            finally {
+                ExecutionTracer.span("tick", "tick", start);
+            }
+            return;
+        }
+        tickInternal(ms_elapsed);
+    }
+
+    static void tickInternal(int ms_elapsed) {
         DebugInternals.onTick();
         serverTimeMillis += ms_elapsed;
         currentTimeMillis = System.currentTimeMillis();
@@ -22,6 +22,7 @@ import com.denizenscript.denizencore.utilities.Deprecations;
 import com.denizenscript.denizencore.utilities.YamlConfiguration;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
 import com.denizenscript.denizencore.utilities.debugging.DebugInternals;
+import com.denizenscript.denizencore.utilities.debugging.ExecutionTracer;
 import com.denizenscript.denizencore.utilities.scheduling.OneTimeSchedulable;
 import com.denizenscript.denizencore.utilities.text.StringHolder;
 
@@ -67,6 +68,7 @@ public abstract class ScriptEvent implements ContextSource, Cloneable {
         registerScriptEvent(ConsoleOutputScriptEvent.class);
         registerScriptEvent(CustomScriptEvent.class);
         registerScriptEvent(DeltaTimeScriptEvent.class);
+        registerScriptEvent(MainThreadStallsScriptEvent.class);
         registerScriptEvent(RedisPubSubMessageScriptEvent.class);
         registerScriptEvent(PreScriptReloadScriptEvent.class);
         registerScriptEvent(ReloadScriptsScriptEvent.class);
@@ -746,6 +748,19 @@ public abstract class ScriptEvent implements ContextSource, Cloneable {
      * Makes a copy of this event object, fires it, and returns the copy.
      */
     public ScriptEvent fire() {
+        if (ExecutionTracer.enabled) {
+            long start = System.nanoTime();
+            try {
+                return fireInternal();
+            }
+            finally {
+                ExecutionTracer.span("event", getName(), start);
+            }
+        }
+        return fireInternal();
+    }
+
+    public ScriptEvent fireInternal() {
         ScriptEvent copy = clone();
         eventData.stats_fires++;
         for (ScriptPath path : eventPaths) {
@@ -787,6 +802,9 @@ public abstract class ScriptEvent implements ContextSource, Cloneable {
             }
             queue.start(true);
             eventData.stats_nanoTimes += System.nanoTime() - queue.startTime;
+            if (ExecutionTracer.enabled) {
+                ExecutionTracer.span("event", path.container.getName() + " " + (path.fireAfter ? "after " : "on ") + path.event, queue.startTime, "queue", queue.id);
+            }
         }
         catch (Exception e) {
             Debug.echoError("Handling script " + path.container.getName() + " path:" + path.event + ":::");
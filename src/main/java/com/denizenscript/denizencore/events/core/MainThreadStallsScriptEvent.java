@@ -0,0 +1,84 @@
+package com.denizenscript.denizencore.events.core;
+
+import com.denizenscript.denizencore.events.ScriptEvent;
+import com.denizenscript.denizencore.objects.ObjectTag;
+import com.denizenscript.denizencore.objects.core.DurationTag;
+import com.denizenscript.denizencore.objects.core.ElementTag;
+import com.denizenscript.denizencore.objects.core.QueueTag;
+import com.denizenscript.denizencore.objects.core.ScriptTag;
+import com.denizenscript.denizencore.scripts.queues.ScriptQueue;
+
+public class MainThreadStallsScriptEvent extends ScriptEvent {
+
+    // <--[event]
+    // @Events
+    // main thread stalls
+    //
+    // @Group Core
+    //
+    // @Triggers after the stall watchdog (see <@link mechanism system.stall_watchdog>) detects that a single tick or a single queue run took longer than the configured threshold.
+    // This fires on the next tick after the stall is detected, so the stalled code has already continued by the time this runs.
+    //
+    // @Context
+    // <context.type> returns what stalled: "tick" for a whole tick, or "revolve" for a single queue run.
+    // <context.duration> returns how long the stall had lasted when it was detected.
+    // <context.queue> returns the queue that was running at the time, if any.
+    // <context.script> returns the script that was running at the time, if any.
+    // <context.line> returns the line number of the command that was running at the time, if any.
+    // <context.command> returns the name of the command that was running at the time, if any.
+    // <context.java_stack> returns the Java stack trace of the main thread at the time, as a single string.
+    //
+    // -->
+
+    public static MainThreadStallsScriptEvent instance;
+
+    public MainThreadStallsScriptEvent() {
+        instance = this;
+        registerCouldMatcher("main thread stalls");
+    }
+
+    public String type;
+    public long durationMillis;
+    public ScriptQueue queue;
+    public ScriptTag script;
+    public int line;
+    public String command;
+    public String javaStack;
+
+    @Override
+    public ObjectTag getContext(String name) {
+        switch (name) {
+            case "type": return new ElementTag(type, true);
+            case "duration": return new DurationTag(durationMillis / 1000.0);
+            case "script": return script;
+            case "java_stack": return new ElementTag(javaStack, true);
+            case "line":
+                if (line != -1) {
+                    return new ElementTag(line);
+                }
+                break;
+            case "command":
+                if (command != null) {
+                    return new ElementTag(command, true);
+                }
+                break;
+            case "queue":
+                if (queue != null) {
+                    return new QueueTag(queue);
+                }
+                break;
+        }
+        return super.getContext(name);
+    }
+
+    public void handle(String type, long durationMillis, ScriptQueue queue, ScriptTag script, int line, String command, String javaStack) {
+        this.type = type;
+        this.durationMillis = durationMillis;
+        this.queue = queue;
+        this.script = script;
+        this.line = line;
+        this.command = command;
+        this.javaStack = javaStack;
+        fire();
+    }
+}
@@ -3,6 +3,9 @@ package com.denizenscript.denizencore.events.core;
 import com.denizenscript.denizencore.events.ScriptEvent;
 import com.denizenscript.denizencore.objects.ObjectTag;
 import com.denizenscript.denizencore.objects.core.ElementTag;
+import com.denizenscript.denizencore.objects.core.ListTag;
+
+import java.util.Collections;
 
 public class RedisPubSubMessageScriptEvent extends ScriptEvent {
 
@@ -20,8 +23,10 @@ public class RedisPubSubMessageScriptEvent extends ScriptEvent {
     // <context.redis_id> returns the connection id that saw this message.
     // <context.pattern> returns the redis pattern that matched the channel.
     // <context.channel> returns the actual channel matched.
-    // <context.message> returns the published message.
+    // <context.message> returns the published message (for a batch, the most recent message).
+    // <context.messages> returns a ListTag of all messages in a batch, or just the one message when not batched.
     //
+    // @Warning When subscribed with "batch", this fires once per tick for each channel that received messages, with all of them in <context.messages>.
     // -->
 
     public static RedisPubSubMessageScriptEvent instance;
@@ -30,6 +35,7 @@ public class RedisPubSubMessageScriptEvent extends ScriptEvent {
     public String pattern;
     public String channel;
     public String message;
+    public ListTag messages;
 
     public RedisPubSubMessageScriptEvent() {
         instance = this;
@@ -52,6 +58,7 @@ public class RedisPubSubMessageScriptEvent extends ScriptEvent {
             case "pattern": return new ElementTag(pattern);
             case "channel": return new ElementTag(channel);
             case "message": return new ElementTag(message);
+            case "messages": return messages != null ? messages : new ListTag(Collections.singletonList(message), true);
         }
         return super.getContext(name);
     }
@@ -61,6 +68,16 @@ public class RedisPubSubMessageScriptEvent extends ScriptEvent {
         this.pattern = pattern;
         this.channel = channel;
         this.message = message;
+        this.messages = null;
+        fire();
+    }
+
+    public void handleBatch(String redisID, String pattern, String channel, ListTag messages) {
+        this.redisID = redisID;
+        this.pattern = pattern;
+        this.channel = channel;
+        this.message = messages.get(messages.size() - 1);
+        this.messages = messages;
         fire();
     }
 }
@@ -8,6 +8,7 @@ import com.denizenscript.denizencore.objects.core.ElementTag;
 import com.denizenscript.denizencore.objects.core.ListTag;
 import com.denizenscript.denizencore.objects.core.MapTag;
 import com.denizenscript.denizencore.scripts.commands.core.WebServerCommand;
+import com.denizenscript.denizencore.scripts.commands.file.FileWriteCommand;
 import com.denizenscript.denizencore.tags.ParseableTag;
 import com.denizenscript.denizencore.tags.TagContext;
 import com.denizenscript.denizencore.tags.TagManager;
@@ -18,11 +19,20 @@ import com.denizenscript.denizencore.utilities.text.StringHolder;
 import com.sun.net.httpserver.HttpExchange;
 
 import java.io.*;
+import java.net.URLConnection;
 import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 public class WebserverWebRequestScriptEvent extends ScriptEvent {
 
@@ -50,6 +60,7 @@ public class WebserverWebRequestScriptEvent extends ScriptEvent {
     // <context.headers> returns a MapTag of all input headers, where the key is the header name and the value is a ListTag of header values for that name.
     // <context.body> returns the text content of the body that was sent, if any. Particularly for POST requests.
     // <context.body_binary> returns the raw binary content body that was sent, if any. Particularly for POST requests.
+    // The body is only read when one of the above tags is used. For large uploads, prefer the "SAVE_BODY:" determination.
     // <context.has_response> returns true if a response body determination (raw_text_content, file, or cached_file) was applied, or false if not.
     //
     // @Determine
@@ -58,9 +69,13 @@ public class WebserverWebRequestScriptEvent extends ScriptEvent {
     // "RAW_TEXT_CONTENT:<ElementTag>" to set a raw text content body in response. You may determine only one response - raw text, raw binary, a file, or a cached file. You cannot use multiple.
     // "RAW_BINARY_CONTENT:<BinaryTag>" to set a raw binary content body in response.
     // "FILE:<ElementTag>" to set a path to a file to send in response. File path must be within the web-root path configured in Denizen/config.yml. Files will be read async.
-    // "CACHED_FILE:<ElementTag>" to set a path to a file to send in response. The content of the file will be cached in RAM until the server restarts. This is useful for files that definitely won't change. First file read will be sync, all others are instant.
+    // File responses (other than parsed ones) with code 200 include an ETag header, and get an automatic '304 Not Modified' response if the client already has the current version.
+    // "CACHED_FILE:<ElementTag>" to set a path to a file to send in response. The content of the file will be cached in RAM, and re-read only if the file changes on disk. First file read will be sync, all others are instant.
+    //                            The cache's total size is limited by the Denizen config, and files too large to cache are sent like "FILE:" instead.
     // "PARSED_FILE:<ElementTag>" - like "FILE:", but this file will be parsed for tags using syntax like "<{util.pi}>" to separate tags from HTML entries.
     // "CACHED_PARSED_FILE:<ElementTag>" - like "PARSED_FILE" and "CACHED_FILE" combined. Note that the file will be cached, but the results of tags will be handled at runtime still.
+    // "SAVE_BODY:<ElementTag>" to stream the request body directly into a file (async, before the response is sent), without loading it into memory. Follows the same path rules as <@link command filewrite>.
+    // File responses (other than parsed ones) support HTTP range requests (a single "Range: bytes=" range), to allow resuming downloads or seeking in media.
     //
     // @Example
     // # This example supplies a manual response to any of the "/", "/index", or "/index.html" paths.
@@ -107,14 +122,7 @@ public class WebserverWebRequestScriptEvent extends ScriptEvent {
             if (stream == null) {
                 return null;
             }
-            ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
-            byte[] buffer = new byte[1024];
-            int len;
-            while ((len = stream.read(buffer, 0, 1024)) != -1) {
-                bytesOut.write(buffer, 0, len);
-            }
-            response.inputBody = bytesOut.toByteArray();
-            bytesOut.close();
+            response.inputBody = stream.readAllBytes();
             return response.inputBody;
         }
         catch (IOException ex) {
@@ -133,19 +141,130 @@ public class WebserverWebRequestScriptEvent extends ScriptEvent {
 
         public byte[] cachedFile;
 
+        public CachedFile cacheEntry;
+
         public boolean hasResponse = false;
 
         public byte[] inputBody;
+
+        public File saveBodyFile;
     }
 
-    public static HashMap<String, byte[]> responseFileCache = new HashMap<>();
+    /**
+     * A file held in the response file cache, along with its precomputed validators and (lazily) its gzipped form and parsed tag form.
+     */
+    public static class CachedFile {
+
+        public final File file;
+
+        public final long lastModified, length;
+
+        public final byte[] data;
+
+        public final String etag;
+
+        public final boolean compressible;
+
+        public volatile byte[] gzipData;
 
-    public static HashMap<String, ParseableTag> responseParseableCache = new HashMap<>();
+        public volatile ParseableTag parsed;
+
+        public CachedFile(File file, long lastModified, byte[] data) {
+            this.file = file;
+            this.lastModified = lastModified;
+            this.length = data.length;
+            this.data = data;
+            this.etag = makeETag(length, lastModified);
+            this.compressible = data.length >= 256 && isCompressible(URLConnection.getFileNameMap().getContentTypeFor(file.getName()));
+        }
+
+        /**
+         * Returns true if the file on disk still matches the cached content.
+         */
+        public boolean isValid() {
+            return file.lastModified() == lastModified && file.length() == length;
+        }
+
+        /**
+         * Returns the gzipped form of the data, or null if compressing doesn't make it smaller.
+         */
+        public byte[] getGzipData() throws IOException {
+            if (gzipData == null) {
+                ByteArrayOutputStream bytesOut = new ByteArrayOutputStream(data.length / 2);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(bytesOut)) {
+                    gzip.write(data);
+                }
+                gzipData = bytesOut.size() < data.length ? bytesOut.toByteArray() : new byte[0];
+            }
+            return gzipData.length == 0 ? null : gzipData;
+        }
+    }
+
+    public static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        return contentType.startsWith("text/") || contentType.endsWith("json") || contentType.endsWith("javascript") || contentType.endsWith("xml");
+    }
+
+    public static String makeETag(long length, long lastModified) {
+        return "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) + "\"";
+    }
+
+    /**
+     * Cache of file path to file content, in least-recently-used order. Must be synchronized on when used.
+     * Total size is limited to CoreConfiguration.webserverFileCacheBytes, and any single file over an eighth of that is never cached.
+     */
+    public static final LinkedHashMap<String, CachedFile> responseFileCache = new LinkedHashMap<>(16, 0.75f, true);
+
+    public static long responseFileCacheBytes = 0;
+
+    /**
+     * Returns the cached content for a file, or null if the file isn't cached or has changed on disk since.
+     */
+    public static CachedFile getValidCachedFile(File file) {
+        CachedFile cached;
+        synchronized (responseFileCache) {
+            cached = responseFileCache.get(file.getPath());
+        }
+        return cached != null && cached.isValid() ? cached : null;
+    }
+
+    /**
+     * Reads a file into the cache, evicting older entries as needed. Returns null if the file is too large to cache.
+     */
+    public static CachedFile loadCachedFile(File file) throws IOException {
+        long maxBytes = CoreConfiguration.webserverFileCacheBytes;
+        if (file.length() > maxBytes / 8) {
+            return null;
+        }
+        long lastModified = file.lastModified();
+        CachedFile cached = new CachedFile(file, lastModified, readFileContent(file));
+        synchronized (responseFileCache) {
+            CachedFile old = responseFileCache.put(file.getPath(), cached);
+            if (old != null) {
+                responseFileCacheBytes -= old.length;
+            }
+            responseFileCacheBytes += cached.length;
+            Iterator<CachedFile> iterator = responseFileCache.values().iterator();
+            while (responseFileCacheBytes > maxBytes && iterator.hasNext()) {
+                CachedFile eldest = iterator.next();
+                if (eldest == cached) {
+                    break;
+                }
+                responseFileCacheBytes -= eldest.length;
+                iterator.remove();
+            }
+        }
+        return cached;
+    }
 
     @Override
     public void destroy() {
-        responseFileCache.clear();
-        responseParseableCache.clear();
+        synchronized (responseFileCache) {
+            responseFileCache.clear();
+            responseFileCacheBytes = 0;
+        }
     }
 
     public WebserverWebRequestScriptEvent() {
@@ -173,6 +292,14 @@ public class WebserverWebRequestScriptEvent extends ScriptEvent {
             evt.response.rawContent = rawBinary.data;
             return true;
         });
+        this.<WebserverWebRequestScriptEvent, ElementTag>registerOptionalDetermination("save_body", ElementTag.class, (evt, context, path) -> {
+            File file = FileWriteCommand.getSafeWriteFile(path.asString(), null);
+            if (file == null) {
+                return false;
+            }
+            evt.response.saveBodyFile = file;
+            return true;
+        });
         registerResponseDetermination("file", ElementTag.class, (evt, context, file) -> evt.handleFileDetermination(false, false, file.asString(), context));
         registerResponseDetermination("parsed_file", ElementTag.class, (evt, context, file) -> evt.handleFileDetermination(false, true, file.asString(), context));
         registerResponseDetermination("cached_file", ElementTag.class, (evt, context, file) -> evt.handleFileDetermination(true, false, file.asString(), context));
@@ -217,26 +344,14 @@ public class WebserverWebRequestScriptEvent extends ScriptEvent {
     public boolean handleFileDetermination(boolean cache, boolean parse, String determination, TagContext context) {
         response.hasResponse = true;
         File root = new File(DenizenCore.implementation.getDataFolder(), CoreConfiguration.webserverRoot);
+        File file = new File(root, determination);
         if (cache) {
-            if (parse) {
-                ParseableTag tag = responseParseableCache.get(determination);
-                if (tag != null) {
-                    response.cachedFile = tag.parse(context).identify().getBytes(StandardCharsets.UTF_8);
-                    return true;
-                }
-            }
-            byte[] cached = responseFileCache.get(determination);
-            response.cachedFile = cached;
+            CachedFile cached = getValidCachedFile(file);
             if (cached != null) {
-                if (parse) {
-                    ParseableTag tag = TagManager.parseTextToTagInternal(new String(response.cachedFile, StandardCharsets.UTF_8), context, true);
-                    responseParseableCache.put(determination, tag);
-                    response.cachedFile = tag.parse(context).identify().getBytes(StandardCharsets.UTF_8);
-                }
+                applyCachedFile(cached, parse, context);
                 return true;
             }
         }
-        File file = new File(root, determination);
         if (!DenizenCore.implementation.canReadFile(file)) {
             Debug.echoError("File path '" + determination + "' is not permitted for access by the Denizen config file.");
             return true;
@@ -251,24 +366,29 @@ public class WebserverWebRequestScriptEvent extends ScriptEvent {
             Debug.echoError(ex);
             return true;
         }
-        if (cache || parse) {
+        if (cache) {
             try {
-                response.cachedFile = readFileContent(file);
+                CachedFile cached = loadCachedFile(file);
+                if (cached != null) {
+                    applyCachedFile(cached, parse, context);
+                    return true;
+                }
             }
             catch (IOException ex) {
                 Debug.echoError(ex);
                 return true;
             }
-            if (cache) {
-                responseFileCache.put(determination, response.cachedFile);
+        }
+        if (parse) {
+            try {
+                response.cachedFile = readFileContent(file);
             }
-            if (parse) {
-                ParseableTag tag = TagManager.parseTextToTagInternal(new String(response.cachedFile, StandardCharsets.UTF_8), context, true);
-                if (cache) {
-                    responseParseableCache.put(determination, tag);
-                }
-                response.cachedFile = tag.parse(context).identify().getBytes(StandardCharsets.UTF_8);
+            catch (IOException ex) {
+                Debug.echoError(ex);
+                return true;
             }
+            ParseableTag tag = TagManager.parseTextToTagInternal(new String(response.cachedFile, StandardCharsets.UTF_8), context, true);
+            response.cachedFile = tag.parse(context).identify().getBytes(StandardCharsets.UTF_8);
         }
         else {
             response.fileResponse = file;
@@ -276,6 +396,199 @@ public class WebserverWebRequestScriptEvent extends ScriptEvent {
         return true;
     }
 
+    public void applyCachedFile(CachedFile cached, boolean parse, TagContext context) {
+        if (parse) {
+            ParseableTag tag = cached.parsed;
+            if (tag == null) {
+                tag = TagManager.parseTextToTagInternal(new String(cached.data, StandardCharsets.UTF_8), context, true);
+                cached.parsed = tag;
+            }
+            response.cachedFile = tag.parse(context).identify().getBytes(StandardCharsets.UTF_8);
+        }
+        else {
+            response.cacheEntry = cached;
+        }
+    }
+
+    /**
+     * Sets the ETag header, and sends a '304 Not Modified' response if the request's 'If-None-Match' header already matches it.
+     * Returns true if the response was sent.
+     */
+    public static boolean checkNotModified(HttpExchange exchange, int code, String etag) throws IOException {
+        if (code != 200) {
+            return false;
+        }
+        exchange.getResponseHeaders().set("ETag", etag);
+        String match = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (match == null) {
+            return false;
+        }
+        for (String option : CoreUtilities.split(match, ',')) {
+            option = option.trim();
+            if (option.equals("*") || option.equals(etag) || (option.startsWith("W/") && option.substring(2).equals(etag))) {
+                exchange.sendResponseHeaders(304, -1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static final long[] RANGE_NOT_SATISFIABLE = new long[0];
+
+    /**
+     * Returns the {start, end} (inclusive) byte range requested by a single-range 'Range' header, or null if the full content should be sent.
+     * Returns RANGE_NOT_SATISFIABLE if the range lies outside the content.
+     */
+    public static long[] getRequestedRange(HttpExchange exchange, int code, long length, String etag) {
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (code != 200 || range == null || !range.startsWith("bytes=") || range.indexOf(',') != -1 || !exchange.getRequestMethod().equals("GET")) {
+            return null;
+        }
+        String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+        if (ifRange != null && !ifRange.equals(etag)) {
+            return null;
+        }
+        int dash = range.indexOf('-');
+        if (dash == -1) {
+            return null;
+        }
+        try {
+            String startText = range.substring("bytes=".length(), dash).trim(), endText = range.substring(dash + 1).trim();
+            long start, end;
+            if (startText.isEmpty()) {
+                long suffix = Long.parseLong(endText);
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            }
+            else {
+                start = Long.parseLong(startText);
+                end = endText.isEmpty() ? length - 1 : Math.min(Long.parseLong(endText), length - 1);
+            }
+            if (start >= length || start > end) {
+                return RANGE_NOT_SATISFIABLE;
+            }
+            return new long[] { start, end };
+        }
+        catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Sends the headers for a range response. Returns false if the range couldn't be satisfied (and a 416 response was sent instead).
+     */
+    public static boolean sendRangeHeaders(HttpExchange exchange, long[] range, long length) throws IOException {
+        if (range == RANGE_NOT_SATISFIABLE) {
+            exchange.getResponseHeaders().set("Content-Range", "bytes */" + length);
+            exchange.sendResponseHeaders(416, -1);
+            return false;
+        }
+        exchange.getResponseHeaders().set("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + length);
+        exchange.sendResponseHeaders(206, range[1] - range[0] + 1);
+        return true;
+    }
+
+    public static boolean acceptsGzip(HttpExchange exchange) {
+        String accepted = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        return accepted != null && accepted.contains("gzip") && !exchange.getResponseHeaders().containsKey("Content-Encoding");
+    }
+
+    /**
+     * Sends a cached file, using the gzipped form if the client accepts it and it's worthwhile.
+     */
+    public static void sendCachedFile(HttpExchange exchange, int code, CachedFile cached) throws IOException {
+        if (checkNotModified(exchange, code, cached.etag)) {
+            return;
+        }
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+        long[] range = getRequestedRange(exchange, code, cached.length, cached.etag);
+        if (range != null) {
+            if (sendRangeHeaders(exchange, range, cached.length)) {
+                try (OutputStream output = exchange.getResponseBody()) {
+                    output.write(cached.data, (int) range[0], (int) (range[1] - range[0] + 1));
+                }
+            }
+            return;
+        }
+        byte[] body = cached.data;
+        if (cached.compressible) {
+            exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+            if (acceptsGzip(exchange)) {
+                byte[] gzipped = cached.getGzipData();
+                if (gzipped != null) {
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                    body = gzipped;
+                }
+            }
+        }
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(body.length));
+            exchange.sendResponseHeaders(code, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(code, body.length == 0 ? -1 : body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    /**
+     * Sends a file directly from disk, without reading it into memory.
+     */
+    public static void sendFile(HttpExchange exchange, int code, File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            String etag = makeETag(size, file.lastModified());
+            if (checkNotModified(exchange, code, etag)) {
+                return;
+            }
+            exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+            long[] range = getRequestedRange(exchange, code, size, etag);
+            if (range != null) {
+                if (sendRangeHeaders(exchange, range, size)) {
+                    try (OutputStream output = exchange.getResponseBody(); WritableByteChannel outChannel = Channels.newChannel(output)) {
+                        transferFully(channel, range[0], range[1] - range[0] + 1, outChannel);
+                    }
+                }
+                return;
+            }
+            if (exchange.getRequestMethod().equals("HEAD")) {
+                exchange.getResponseHeaders().set("Content-Length", String.valueOf(size));
+                exchange.sendResponseHeaders(code, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(code, size == 0 ? -1 : size);
+            try (OutputStream output = exchange.getResponseBody(); WritableByteChannel outChannel = Channels.newChannel(output)) {
+                transferFully(channel, 0, size, outChannel);
+            }
+        }
+    }
+
+    public static void transferFully(FileChannel channel, long position, long count, WritableByteChannel target) throws IOException {
+        long end = position + count;
+        while (position < end) {
+            position += channel.transferTo(position, end - position, target);
+        }
+    }
+
+    /**
+     * Streams the request body straight to a file, without holding it in memory (unless a script already read it).
+     */
+    public static void saveBody(HttpExchange exchange, WebResponse response) throws IOException {
+        File file = response.saveBodyFile;
+        if (file.getParentFile() != null && !file.getParentFile().exists()) {
+            file.getParentFile().mkdirs();
+        }
+        if (response.inputBody != null) {
+            Files.write(file.toPath(), response.inputBody);
+            return;
+        }
+        InputStream stream = exchange.getRequestBody();
+        if (stream != null) {
+            Files.copy(stream, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
     @Override
     public ObjectTag getContext(String name) {
         return switch (name) {
@@ -315,31 +628,40 @@ public class WebserverWebRequestScriptEvent extends ScriptEvent {
         instance.exchange = exchange;
         final WebResponse response = instance.response = new WebResponse();
         instance.fire();
-        DenizenCore.runAsync(() -> {
+        server.executor(() -> {
             try {
-                byte[] body;
-                if (response.rawContent != null) {
-                    body = response.rawContent;
+                if (response.saveBodyFile != null) {
+                    saveBody(exchange, response);
                 }
-                else if (response.cachedFile != null) {
-                    body = response.cachedFile;
+                if (response.cacheEntry != null) {
+                    sendCachedFile(exchange, response.code, response.cacheEntry);
                 }
-                else if (response.fileResponse != null) {
-                    body = readFileContent(response.fileResponse);
+                else if (response.fileResponse != null && response.rawContent == null) {
+                    sendFile(exchange, response.code, response.fileResponse);
                 }
                 else {
-                    body = new byte[0];
+                    byte[] body;
+                    if (response.rawContent != null) {
+                        body = response.rawContent;
+                    }
+                    else if (response.cachedFile != null) {
+                        body = response.cachedFile;
+                    }
+                    else {
+                        body = new byte[0];
+                    }
+                    exchange.sendResponseHeaders(response.code, body.length);
+                    OutputStream os = exchange.getResponseBody();
+                    os.write(body);
+                    os.close();
                 }
-                exchange.sendResponseHeaders(response.code, body.length);
-                OutputStream os = exchange.getResponseBody();
-                os.write(body);
-                os.close();
                 exchange.close();
             }
             catch (Throwable ex) {
                 if (!server.ignoreErrors || !(ex instanceof IOException)) {
                     Debug.echoError(ex);
                 }
+                exchange.close();
             }
         });
     }
@@ -15,7 +15,6 @@ import com.denizenscript.denizencore.utilities.*;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
 import com.denizenscript.denizencore.utilities.debugging.DebugInternals;
 import com.denizenscript.denizencore.utilities.debugging.Debuggable;
-import com.denizenscript.denizencore.utilities.text.StringHolder;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -2443,17 +2442,10 @@ public class ListTag implements List<String>, ObjectTag {
                 return null;
             }
             ListTag newlist = new ListTag();
-            TagContext context = attribute.context;
-            Attribute.OverridingDefinitionProvider provider = new Attribute.OverridingDefinitionProvider(context.definitionProvider);
-            DefinitionProvider originalProvider = context.definitionProvider;
-            context.definitionProvider = provider;
             try {
-                String raw = attribute.getRawParam();
-                ParseableTag parseable = TagManager.parseTextToTag(raw, context);
-                StringHolder filterValueStr = new StringHolder("filter_value");
+                Attribute.DynamicParamClosure closure = attribute.compileDynamicParam("filter_value");
                 for (ObjectTag obj : object.objectForms) {
-                    provider.altDefs.map.put(filterValueStr, obj);
-                    if (CoreUtilities.equalsIgnoreCase(parseable.parse(context).toString(), "true")) {
+                    if (CoreUtilities.equalsIgnoreCase(closure.run(obj).toString(), "true")) {
                         newlist.addObject(obj);
                     }
                 }
@@ -2461,9 +2453,6 @@ public class ListTag implements List<String>, ObjectTag {
             catch (Exception ex) {
                 Debug.echoError(ex);
             }
-            finally {
-                context.definitionProvider = originalProvider;
-            }
             return newlist;
         });
 
@@ -2485,25 +2474,15 @@ public class ListTag implements List<String>, ObjectTag {
                 return null;
             }
             ListTag newlist = new ListTag(object.size());
-            TagContext context = attribute.context;
-            Attribute.OverridingDefinitionProvider provider = new Attribute.OverridingDefinitionProvider(context.definitionProvider);
-            DefinitionProvider originalProvider = context.definitionProvider;
-            context.definitionProvider = provider;
             try {
-                String raw = attribute.getRawParam();
-                ParseableTag parseable = TagManager.parseTextToTag(raw, context);
-                StringHolder parseValueStr = new StringHolder("parse_value");
+                Attribute.DynamicParamClosure closure = attribute.compileDynamicParam("parse_value");
                 for (ObjectTag obj : object.objectForms) {
-                    provider.altDefs.map.put(parseValueStr, obj);
-                    newlist.addObject(parseable.parse(context));
+                    newlist.addObject(closure.run(obj));
                 }
             }
             catch (Exception ex) {
                 Debug.echoError(ex);
             }
-            finally {
-                context.definitionProvider = originalProvider;
-            }
             return newlist;
         });
 
@@ -494,12 +494,10 @@ public class MapTag implements ObjectTag {
                 return null;
             }
             MapTag newMap = new MapTag();
-            Attribute.OverridingDefinitionProvider provider = new Attribute.OverridingDefinitionProvider(attribute.context.definitionProvider);
             try {
+                Attribute.DynamicParamClosure closure = attribute.compileDynamicParam("filter_key", "filter_value");
                 for (Map.Entry<StringHolder, ObjectTag> entry : object.entrySet()) {
-                    provider.altDefs.putObject("filter_key", new ElementTag(entry.getKey().str));
-                    provider.altDefs.putObject("filter_value", entry.getValue());
-                    if (CoreUtilities.equalsIgnoreCase(attribute.parseDynamicParam(provider).toString(), "true")) {
+                    if (CoreUtilities.equalsIgnoreCase(closure.run(new ElementTag(entry.getKey().str), entry.getValue()).toString(), "true")) {
                         newMap.putObject(entry.getKey(), entry.getValue());
                     }
                 }
@@ -526,12 +524,10 @@ public class MapTag implements ObjectTag {
                 return null;
             }
             MapTag newMap = new MapTag();
-            Attribute.OverridingDefinitionProvider provider = new Attribute.OverridingDefinitionProvider(attribute.context.definitionProvider);
             try {
+                Attribute.DynamicParamClosure closure = attribute.compileDynamicParam("parse_key", "parse_value");
                 for (Map.Entry<StringHolder, ObjectTag> entry : object.entrySet()) {
-                    provider.altDefs.putObject("parse_key", new ElementTag(entry.getKey().str));
-                    provider.altDefs.putObject("parse_value", entry.getValue());
-                    newMap.putObject(entry.getKey(), attribute.parseDynamicParam(provider));
+                    newMap.putObject(entry.getKey(), closure.run(new ElementTag(entry.getKey().str), entry.getValue()));
                 }
             }
             catch (Exception ex) {
@@ -87,6 +87,9 @@ public class ScriptEntry implements Cloneable, Debuggable, Iterable<Argument> {
         public Boolean shouldDebugBool = null;
 
         public int defObjects = 8;
+
+        /** Cached name of this line for ExecutionProfiler output. */
+        public String profilerName = null;
     }
 
     public static class BooleanArg {
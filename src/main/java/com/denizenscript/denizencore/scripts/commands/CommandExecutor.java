@@ -6,6 +6,8 @@ import com.denizenscript.denizencore.objects.Argument;
 import com.denizenscript.denizencore.tags.TagContext;
 import com.denizenscript.denizencore.utilities.CoreUtilities;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
+import com.denizenscript.denizencore.utilities.debugging.ExecutionProfiler;
+import com.denizenscript.denizencore.utilities.debugging.ExecutionTracer;
 import com.denizenscript.denizencore.DenizenCore;
 import com.denizenscript.denizencore.scripts.ScriptEntry;
 import com.denizenscript.denizencore.scripts.queues.ScriptQueue;
@@ -69,6 +71,32 @@ public class CommandExecutor {
     // -->
 
     public static boolean execute(ScriptEntry scriptEntry) {
+        if (ExecutionTracer.enabled) {
+            long start = System.nanoTime();
+            try {
+                return executeProfiled(scriptEntry);
+            }
+            finally {
+                ExecutionTracer.commandSpan(scriptEntry, start);
+            }
+        }
+        return executeProfiled(scriptEntry);
+    }
+
+    public static boolean executeProfiled(ScriptEntry scriptEntry) {
+        if (ExecutionProfiler.shouldProfile()) {
+            ExecutionProfiler.enter(ExecutionProfiler.commandStats, ExecutionProfiler.getCommandName(scriptEntry));
+            try {
+                return executeInternal(scriptEntry);
+            }
+            finally {
+                ExecutionProfiler.exit();
+            }
+        }
+        return executeInternal(scriptEntry);
+    }
+
+    public static boolean executeInternal(ScriptEntry scriptEntry) {
         if (scriptEntry.dbCallShouldDebug()) {
             debugSingleExecution(scriptEntry);
         }
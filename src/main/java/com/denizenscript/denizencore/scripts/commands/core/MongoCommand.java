@@ -14,30 +14,34 @@ import com.denizenscript.denizencore.utilities.CoreUtilities;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
 import com.denizenscript.denizencore.utilities.scheduling.AsyncSchedulable;
 import com.denizenscript.denizencore.utilities.scheduling.OneTimeSchedulable;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.*;
-import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.*;
+import com.mongodb.client.result.InsertManyResult;
 import com.mongodb.client.result.InsertOneResult;
 import com.mongodb.client.result.UpdateResult;
 import org.bson.*;
 import org.bson.types.ObjectId;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MongoCommand extends AbstractCommand implements Holdable {
 
     public MongoCommand() {
         setName("mongo");
-        setSyntax("mongo [id:<ID>] [connect:<uri> database:<database> collection:<collection>/disconnect/command:<map>/find:<map> (by_id:<id>)/insert:<map>/update:<update> new:<new> (upsert:true/{false})/use_database:<database>/use_collection:<collection>]");
-        setRequiredArguments(2, 4);
+        setSyntax("mongo [id:<ID>] [connect:<uri> database:<database> collection:<collection>/disconnect/command:<map>/find:<map> (by_id:<id>) (cursor:<name> (page_size:<#>/{100}))/next_page cursor:<name>/close_cursor cursor:<name>/insert:<map>/insert_many:<list> (ordered:{true}/false)/bulk:<list> (ordered:{true}/false)/update:<update> new:<new> (upsert:true/{false})/use_database:<database>/use_collection:<collection>]");
+        setRequiredArguments(2, 5);
         isProcedural = false;
         autoCompile();
     }
 
     // <--[command]
     // @Name Mongo
-    // @Syntax mongo [id:<ID>] [connect:<uri> database:<database> collection:<collection>/disconnect/command:<map>/find:<map> (by_id:<id>)/insert:<map>/update:<update> new:<new> (upsert:true/{false})/use_database:<database>/use_collection:<collection>]
+    // @Syntax mongo [id:<ID>] [connect:<uri> database:<database> collection:<collection>/disconnect/command:<map>/find:<map> (by_id:<id>) (cursor:<name> (page_size:<#>/{100}))/next_page cursor:<name>/close_cursor cursor:<name>/insert:<map>/insert_many:<list> (ordered:{true}/false)/bulk:<list> (ordered:{true}/false)/update:<update> new:<new> (upsert:true/{false})/use_database:<database>/use_collection:<collection>]
     // @Required 2
-    // @Maximum 4
+    // @Maximum 5
     // @Short Interacts with a MongoDB server.
     // @Group core
     //
@@ -59,6 +63,16 @@ public class MongoCommand extends AbstractCommand implements Holdable {
     // To insert Documents, use insert:<map>.
     // To find a specific document from fragments of data, use find:<map>. You can include MongoDB's special query filters to further refine your query. If you want to search by a Document's ID, use by_id:id.
     //
+    // To read a large find result a page at a time rather than all at once, add cursor:<name> and optionally page_size:<#> (defaults to 100).
+    // The find will only return the first page, and you can then use next_page with the same cursor name to get each following page, of the same size as the first.
+    // <entry[saveName].has_more> tells whether there may be more pages. A page may be empty when the previous page happened to end exactly at the end of the results.
+    // Cursors are closed automatically once all results are read, or you can close one early with close_cursor.
+    //
+    // To insert many Documents at once, use insert_many:<list> with a list of maps.
+    // To run a mix of writes at once, use bulk:<list> with a list of maps, each of which is one of:
+    // a map with key 'insert' (the document to insert), a map with keys 'update' and 'new' (and optionally 'upsert') that works like the update action, or a map with key 'delete' (a filter of documents to delete).
+    // Both are sent to the server in as few requests as possible. By default they are ordered, meaning they stop at the first failure; specify ordered:false to allow the server to run them in any order and continue past failures.
+    //
     // To update a Document's data, use update:<update> with the old data, and new:<new> for the new data being updated. This will update every Document matched with the provided data.
     // You can also include the upsert flag, to create a new Document if the Document you are trying to update does not already exist.
     //
@@ -76,7 +90,13 @@ public class MongoCommand extends AbstractCommand implements Holdable {
     // <entry[saveName].inserted_id> returns the ID of the item that has been inserted via the `insert` action.
     // <entry[saveName].ok> returns the 'ok' value from the result. Used with the `command` action.
     // <entry[saveName].upserted_id> returns the ID the upserted item. Returned if the `upsert` bool is true when updating.
-    // <entry[saveName].updated_count> returns the amount of Documents updated via the `update` action.
+    // <entry[saveName].updated_count> returns the amount of Documents updated via the `update` or `bulk` action.
+    // <entry[saveName].has_more> returns whether a cursor may have more results, for the `find` with a cursor and `next_page` actions.
+    // <entry[saveName].inserted_count> returns the amount of Documents inserted via the `insert_many` or `bulk` action.
+    // <entry[saveName].inserted_ids> returns a ListTag of the IDs of Documents inserted via the `insert_many` action.
+    // <entry[saveName].matched_count> returns the amount of Documents matched by updates via the `bulk` action.
+    // <entry[saveName].deleted_count> returns the amount of Documents deleted via the `bulk` action.
+    // <entry[saveName].upserted_count> returns the amount of Documents upserted via the `bulk` action.
     //
     // @Usage
     // Use to connect to a Mongo instance.
@@ -124,6 +144,28 @@ public class MongoCommand extends AbstractCommand implements Holdable {
     // - ~mongo id:name insert:<[data]> save:mg
     //
     // @Usage
+    // Read every Document in a Collection, 500 at a time.
+    // - ~mongo id:name find:<map> cursor:all page_size:500 save:page
+    // - while <entry[page].has_more.if_null[false]>:
+    //     - foreach <entry[page].result> as:json:
+    //         - narrate <[json]>
+    //     - ~mongo id:name next_page cursor:all save:page
+    //
+    // @Usage
+    // Insert many Documents at once.
+    // - define docs:->:<map[name=Mercury;order_from_sun=1]>
+    // - define docs:->:<map[name=Venus;order_from_sun=2]>
+    // - ~mongo id:name insert_many:<[docs]> save:mg
+    // - narrate "Inserted <entry[mg].inserted_count> documents"
+    //
+    // @Usage
+    // Run several different writes at once.
+    // - define ops:->:<map[insert=<map[name=Ceres]>]>
+    // - define ops:->:<map[update=<map[name=Pluto]>;new=<map[$set=<map[dwarf=true]>]>]>
+    // - define ops:->:<map[delete=<map[name=Vulcan]>]>
+    // - ~mongo id:name bulk:<[ops]> ordered:false save:mg
+    //
+    // @Usage
     // Update data.
     // - definemap old_data:
     //      name: Pluto
@@ -143,16 +185,37 @@ public class MongoCommand extends AbstractCommand implements Holdable {
 
     public static Map<String, Connection> mongoConnections = new HashMap<>();
 
+    /**
+     * An open find result being read in pages. All use must be synchronized on this object, as pages are read async.
+     */
+    public static class PagedCursor {
+
+        public MongoCursor<Document> cursor;
+
+        public int pageSize;
+    }
+
     public static class Connection {
         public MongoClient connection;
         public MongoDatabase database;
         public MongoCollection<Document> collection;
+        public Map<String, PagedCursor> cursors = new ConcurrentHashMap<>();
+
+        public void closeCursors() {
+            for (PagedCursor cursor : cursors.values()) {
+                synchronized (cursor) {
+                    cursor.cursor.close();
+                }
+            }
+            cursors.clear();
+        }
     }
 
     @Override
     public void onDisable() {
         for (Connection entry : mongoConnections.values()) {
             try {
+                entry.closeCursors();
                 entry.connection.close();
             }
             catch (final Exception e) {
@@ -182,7 +245,14 @@ public class MongoCommand extends AbstractCommand implements Holdable {
                                    @ArgPrefixed @ArgDefaultNull @ArgName("new") MapTag newData,
                                    @ArgName("upsert") boolean upsert,
                                    @ArgPrefixed @ArgDefaultNull @ArgName("use_database") String newDatabase,
-                                   @ArgPrefixed @ArgDefaultNull @ArgName("use_collection") String newCollection) {
+                                   @ArgPrefixed @ArgDefaultNull @ArgName("use_collection") String newCollection,
+                                   @ArgPrefixed @ArgDefaultNull @ArgName("cursor") String cursorName,
+                                   @ArgPrefixed @ArgDefaultText("100") @ArgName("page_size") int pageSize,
+                                   @ArgName("next_page") boolean nextPage,
+                                   @ArgName("close_cursor") boolean closeCursor,
+                                   @ArgPrefixed @ArgDefaultNull @ArgName("insert_many") ListTag insertMany,
+                                   @ArgPrefixed @ArgDefaultNull @ArgName("bulk") ListTag bulk,
+                                   @ArgPrefixed @ArgDefaultText("true") @ArgName("ordered") boolean ordered) {
         if (!CoreConfiguration.allowMongo) {
             Debug.echoError(scriptEntry, "Mongo disabled by config!");
             return;
@@ -255,6 +325,7 @@ public class MongoCommand extends AbstractCommand implements Holdable {
                 if (disconnect) {
                     mongoConnections.remove(connectionId);
                     try {
+                        connection.closeCursors();
                         connection.connection.close();
                     }
                     catch (Exception e) {
@@ -263,6 +334,40 @@ public class MongoCommand extends AbstractCommand implements Holdable {
                     Debug.echoDebug(scriptEntry, "Disconnected from '" + id + "'.");
                     return;
                 }
+                if (nextPage || closeCursor) {
+                    if (cursorName == null) {
+                        Debug.echoError(scriptEntry, "You must specify a cursor!");
+                        scriptEntry.setFinished(true);
+                        return;
+                    }
+                    String cursorId = CoreUtilities.toLowerCase(cursorName);
+                    PagedCursor cursor = closeCursor ? connection.cursors.remove(cursorId) : connection.cursors.get(cursorId);
+                    if (cursor == null) {
+                        Debug.echoError(scriptEntry, "There is no open cursor named '" + cursorName + "' for ID '" + id + "'!");
+                        scriptEntry.setFinished(true);
+                        return;
+                    }
+                    try {
+                        if (closeCursor) {
+                            synchronized (cursor) {
+                                cursor.cursor.close();
+                            }
+                            Debug.echoDebug(scriptEntry, "Closed cursor '" + cursorName + "'.");
+                        }
+                        else {
+                            readCursorPage(scriptEntry, connection, cursorId, cursor);
+                        }
+                        DenizenCore.runOnMainThread(() -> scriptEntry.setFinished(true));
+                    }
+                    catch (final Exception e) {
+                        connection.cursors.remove(cursorId);
+                        synchronized (cursor) {
+                            cursor.cursor.close();
+                        }
+                        echoMongoError(scriptEntry, e);
+                    }
+                    return;
+                }
                 if (connection.database == null) {
                     Debug.echoError(scriptEntry, "Not connected to database! Was it dropped?");
                     scriptEntry.setFinished(true);
@@ -320,6 +425,21 @@ public class MongoCommand extends AbstractCommand implements Holdable {
                             query.put("_id", new BsonObjectId(new ObjectId(findByID)));
                         }
                         Debug.echoDebug(scriptEntry, "Finding data in Collection: '" + connection.collection.getNamespace() + "'...");
+                        if (cursorName != null) {
+                            String cursorId = CoreUtilities.toLowerCase(cursorName);
+                            if (connection.cursors.containsKey(cursorId)) {
+                                Debug.echoError(scriptEntry, "A cursor named '" + cursorName + "' is already open for ID '" + id + "'!");
+                                scriptEntry.setFinished(true);
+                                return;
+                            }
+                            PagedCursor cursor = new PagedCursor();
+                            cursor.pageSize = Math.max(1, pageSize);
+                            cursor.cursor = connection.collection.find(new Document(query)).batchSize(cursor.pageSize).iterator();
+                            connection.cursors.put(cursorId, cursor);
+                            readCursorPage(scriptEntry, connection, cursorId, cursor);
+                            DenizenCore.runOnMainThread(() -> scriptEntry.setFinished(true));
+                            return;
+                        }
                         FindIterable<Document> findResult = connection.collection.find(new Document(query));
                         ListTag result = new ListTag();
                         for (Document doc : findResult) {
@@ -361,6 +481,48 @@ public class MongoCommand extends AbstractCommand implements Holdable {
                         });
                     }
                 }
+                else if (insertMany != null) {
+                    try {
+                        List<Document> documents = new ArrayList<>(insertMany.size());
+                        for (MapTag map : insertMany.filter(MapTag.class, scriptEntry)) {
+                            documents.add(new Document((HashMap<String, Object>) CoreUtilities.objectTagToJavaForm(map, false, true)));
+                        }
+                        Debug.echoDebug(scriptEntry, "Inserting " + documents.size() + " documents into Collection: '" + connection.collection.getNamespace() + "'...");
+                        InsertManyResult result = connection.collection.insertMany(documents, new InsertManyOptions().ordered(ordered));
+                        ListTag insertedIds = new ListTag();
+                        for (BsonValue insertedId : result.getInsertedIds().values()) {
+                            insertedIds.addObject(new ElementTag(insertedId.isObjectId() ? insertedId.asObjectId().getValue().toString() : insertedId.toString()));
+                        }
+                        scriptEntry.saveObject("inserted_ids", insertedIds);
+                        scriptEntry.saveObject("inserted_count", new ElementTag(insertedIds.size()));
+                        DenizenCore.runOnMainThread(() -> scriptEntry.setFinished(true));
+                    }
+                    catch (final MongoBulkWriteException e) {
+                        saveBulkResult(scriptEntry, e.getWriteResult());
+                        echoMongoError(scriptEntry, e);
+                    }
+                    catch (final Exception e) {
+                        echoMongoError(scriptEntry, e);
+                    }
+                }
+                else if (bulk != null) {
+                    try {
+                        List<WriteModel<Document>> operations = new ArrayList<>(bulk.size());
+                        for (MapTag map : bulk.filter(MapTag.class, scriptEntry)) {
+                            operations.add(getWriteModel(map));
+                        }
+                        Debug.echoDebug(scriptEntry, "Running " + operations.size() + " bulk write operations in Collection: '" + connection.collection.getNamespace() + "'...");
+                        saveBulkResult(scriptEntry, connection.collection.bulkWrite(operations, new BulkWriteOptions().ordered(ordered)));
+                        DenizenCore.runOnMainThread(() -> scriptEntry.setFinished(true));
+                    }
+                    catch (final MongoBulkWriteException e) {
+                        saveBulkResult(scriptEntry, e.getWriteResult());
+                        echoMongoError(scriptEntry, e);
+                    }
+                    catch (final Exception e) {
+                        echoMongoError(scriptEntry, e);
+                    }
+                }
                 else if (oldData != null) {
                     if (newData == null) {
                         Debug.echoError(scriptEntry, "You must specify the new data to be updated!");
@@ -433,4 +595,68 @@ public class MongoCommand extends AbstractCommand implements Holdable {
             runnable.run();
         }
     }
+
+    public static void echoMongoError(ScriptEntry scriptEntry, Exception e) {
+        DenizenCore.runOnMainThread(() -> {
+            Debug.echoError(scriptEntry, "Mongo Exception: " + e.getMessage());
+            if (CoreConfiguration.debugVerbose) {
+                Debug.echoError(scriptEntry, e);
+            }
+            scriptEntry.setFinished(true);
+        });
+    }
+
+    /**
+     * Reads up to one page of documents from a cursor into the entry's 'result', and closes the cursor if the server has no more.
+     */
+    public static void readCursorPage(ScriptEntry scriptEntry, Connection connection, String cursorId, PagedCursor paged) {
+        synchronized (paged) {
+            MongoCursor<Document> cursor = paged.cursor;
+            ListTag result = new ListTag();
+            while (result.size() < paged.pageSize && (cursor.available() > 0 || cursor.getServerCursor() != null) && cursor.hasNext()) {
+                result.addObject(new ElementTag(cursor.next().toJson()));
+            }
+            boolean hasMore = cursor.available() > 0 || cursor.getServerCursor() != null;
+            if (!hasMore) {
+                connection.cursors.remove(cursorId);
+                cursor.close();
+            }
+            scriptEntry.saveObject("result", result);
+            scriptEntry.saveObject("has_more", new ElementTag(hasMore));
+        }
+    }
+
+    public static WriteModel<Document> getWriteModel(MapTag map) {
+        MapTag insertDoc = map.getObjectAs("insert", MapTag.class, CoreUtilities.noDebugContext);
+        if (insertDoc != null) {
+            return new InsertOneModel<>(new Document((HashMap<String, Object>) CoreUtilities.objectTagToJavaForm(insertDoc, false, true)));
+        }
+        MapTag filter = map.getObjectAs("update", MapTag.class, CoreUtilities.noDebugContext);
+        if (filter != null) {
+            MapTag update = map.getObjectAs("new", MapTag.class, CoreUtilities.noDebugContext);
+            if (update == null) {
+                throw new IllegalArgumentException("Bulk update operation is missing 'new': " + map);
+            }
+            ElementTag upsertValue = map.getElement("upsert");
+            return new UpdateManyModel<>(new Document((HashMap<String, Object>) CoreUtilities.objectTagToJavaForm(filter, false, true)),
+                    new Document((HashMap<String, Object>) CoreUtilities.objectTagToJavaForm(update, false, true)),
+                    new UpdateOptions().upsert(upsertValue != null && upsertValue.asBoolean()));
+        }
+        filter = map.getObjectAs("delete", MapTag.class, CoreUtilities.noDebugContext);
+        if (filter != null) {
+            return new DeleteManyModel<>(new Document((HashMap<String, Object>) CoreUtilities.objectTagToJavaForm(filter, false, true)));
+        }
+        throw new IllegalArgumentException("Invalid bulk operation (must have 'insert', 'update', or 'delete'): " + map);
+    }
+
+    public static void saveBulkResult(ScriptEntry scriptEntry, BulkWriteResult result) {
+        if (!result.wasAcknowledged()) {
+            return;
+        }
+        scriptEntry.saveObject("inserted_count", new ElementTag(result.getInsertedCount()));
+        scriptEntry.saveObject("matched_count", new ElementTag(result.getMatchedCount()));
+        scriptEntry.saveObject("updated_count", new ElementTag(result.getModifiedCount()));
+        scriptEntry.saveObject("deleted_count", new ElementTag(result.getDeletedCount()));
+        scriptEntry.saveObject("upserted_count", new ElementTag(result.getUpserts().size()));
+    }
 }
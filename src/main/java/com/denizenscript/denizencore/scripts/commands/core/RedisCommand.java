@@ -15,18 +15,18 @@ public class RedisCommand extends AbstractCommand implements Holdable {
 
     public RedisCommand() {
         setName("redis");
-        setSyntax("redis [id:<ID>] [connect:<host> (auth:<secret>) (port:<port>/{6379}) (ssl:true/{false})/disconnect/subscribe:<channel>|.../unsubscribe/publish:<channel> message:<message>/command:<command> (args:<arg>|...)]");
-        setRequiredArguments(2, 5);
+        setSyntax("redis [id:<ID>] [connect:<host> (auth:<secret>) (port:<port>/{6379}) (ssl:true/{false}) (pool_size:<#>)/disconnect/subscribe:<channel>|... (batch) (max_per_tick:<#>)/unsubscribe/publish:<channel> message:<message>/command:<command> (args:<arg>|...)/pipeline:<list> (transaction)]");
+        setRequiredArguments(2, 6);
         isProcedural = false;
-        setPrefixesHandled("auth", "port", "id", "message", "args");
-        setBooleansHandled("ssl");
+        setPrefixesHandled("auth", "port", "id", "message", "args", "pool_size", "max_per_tick");
+        setBooleansHandled("ssl", "transaction", "batch");
     }
 
     // <--[command]
     // @Name Redis
-    // @Syntax redis [id:<ID>] [connect:<host> (auth:<secret>) (port:<port>/{6379}) (ssl:true/{false})/disconnect/subscribe:<channel>|.../unsubscribe/publish:<channel> message:<message>/command:<command> (args:<arg>|...)]
+    // @Syntax redis [id:<ID>] [connect:<host> (auth:<secret>) (port:<port>/{6379}) (ssl:true/{false}) (pool_size:<#>)/disconnect/subscribe:<channel>|... (batch) (max_per_tick:<#>)/unsubscribe/publish:<channel> message:<message>/command:<command> (args:<arg>|...)/pipeline:<list> (transaction)]
     // @Required 2
-    // @Maximum 5
+    // @Maximum 6
     // @Short Interacts with a Redis server.
     // @Group core
     //
@@ -45,8 +45,24 @@ public class RedisCommand extends AbstractCommand implements Holdable {
     // Connections that are subscribed to channels get tied up listening for messages and are unavailable to run redis commands.
     // The channels you subscribe to support wildcard (*) matchers and other patterns, defined by the redis docs: <@link url https://redis.io/commands/psubscribe>
     //
+    // By default, each message is passed to the main thread separately as soon as it arrives.
+    // For channels that may receive many messages quickly, messages can instead be queued and delivered once per tick:
+    // add "batch" to fire the event once per tick for each channel, with all of that tick's messages in <context.messages>,
+    // and/or "max_per_tick:<#>" to deliver at most that many messages per tick, leaving the rest queued for later ticks.
+    // The queue has a size limit set in the Denizen config, past which new messages are dropped. See <@link tag util.redis_pubsub_stats>.
+    //
     // Note: Make sure there are at least a few ticks between opening a subscription and closing it, otherwise strange behavior will occur.
     //
+    // To send many commands at once, use "pipeline:" with a list of commands.
+    // Each entry is either a full command line, or a list of the command name followed by its arguments (for unpredictable values).
+    // All commands are sent in a single round trip, and saving the result gives a ListTag of each command's response in order.
+    // Add "transaction" to wrap the commands in a MULTI/EXEC transaction, so that they are run all together with no other client's commands in between.
+    //
+    // Optionally specify "pool_size:" when connecting to open a pool of up to that many connections rather than one.
+    // Each command, pipeline, or publish on a pooled ID borrows its own connection from the pool, so that many can run at once without waiting on each other.
+    // A subscription on a pooled ID opens its own separate connection (not taken from the pool) for as long as it's subscribed, and other commands can still run on the same ID while subscribed.
+    // If all pooled connections are busy, a command waits for one to be free, up to a time limit set in the Denizen config, after which it fails with an error.
+    //
     // You can publish messages to listening subscribers via publish:<channel> message:<message>.
     // Note that this has to be done on a separate redis connection if it is already subscribed.
     // Saving the result of this call returns the number of connected subscribers the message was sent to.
@@ -55,8 +71,9 @@ public class RedisCommand extends AbstractCommand implements Holdable {
     // You can view the official redis documentation and the supported commands here: <@link url https://redis.io/>
     //
     // @Tags
-    // <entry[saveName].result> returns an ElementTag or ListTag of the results of your command, depending on the redis command you ran.
+    // <entry[saveName].result> returns an ElementTag or ListTag of the results of your command, depending on the redis command you ran. For a pipeline, a ListTag of each command's result.
     // <util.redis_connections>
+    // <util.redis_pubsub_stats>
     //
     // @Usage
     // Use to connect to a Redis server.
@@ -105,6 +122,21 @@ public class RedisCommand extends AbstractCommand implements Holdable {
     // - ~redis id:name "command:lrange my_list 0 -1"
     //
     // @Usage
+    // Connect to a Redis server with a pool of up to 8 connections.
+    // - ~redis id:name connect:localhost pool_size:8
+    //
+    // @Usage
+    // Get several keys in one round trip.
+    // - ~redis id:name "pipeline:<list[get key_a|get key_b|get key_c]>" save:result
+    // - narrate "a is <entry[result].result.get[1]>, b is <entry[result].result.get[2]>"
+    //
+    // @Usage
+    // Set two keys together in a transaction, using list entries for unpredictable input.
+    // - define commands:->:<list[set|player_name].include_single[<context.message>]>
+    // - define commands:->:<list[incr|message_count]>
+    // - ~redis id:name pipeline:<[commands]> transaction
+    //
+    // @Usage
     // Subscribe to a redis channel. This will match published messages to channel_1, channel_foo, etc.
     // - ~redis id:name subscribe:channel_*
     //
@@ -113,6 +145,10 @@ public class RedisCommand extends AbstractCommand implements Holdable {
     // - ~redis id:name subscribe:a|b*|c|d
     //
     // @Usage
+    // Subscribe to a busy redis channel, receiving each tick's messages together, at most 500 per tick.
+    // - ~redis id:name subscribe:chat_* batch max_per_tick:500
+    //
+    // @Usage
     // Publish a message to a redis channel. This will trigger the <@link event redis pubsub message> event for any subscribed connections for any server.
     // - ~redis id:name publish:channel_1 "message:hey look something happened"
     //
@@ -160,6 +196,11 @@ public class RedisCommand extends AbstractCommand implements Holdable {
                 scriptEntry.addObject("action", new ElementTag("publish"));
                 scriptEntry.addObject("channel", arg.asElement());
             }
+            else if (!scriptEntry.hasObject("action")
+                    && arg.matchesPrefix("pipeline")) {
+                scriptEntry.addObject("action", new ElementTag("pipeline"));
+                scriptEntry.addObject("commands", arg.asType(ListTag.class));
+            }
             else if (!scriptEntry.hasObject("action")
                     && arg.matchesPrefix("command")) {
                 scriptEntry.addObject("action", new ElementTag("command"));
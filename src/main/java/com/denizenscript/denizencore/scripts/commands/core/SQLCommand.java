@@ -10,6 +10,7 @@ import com.denizenscript.denizencore.scripts.commands.Holdable;
 import com.denizenscript.denizencore.utilities.CoreConfiguration;
 import com.denizenscript.denizencore.utilities.CoreUtilities;
 import com.denizenscript.denizencore.utilities.Deprecations;
+import com.denizenscript.denizencore.utilities.SQLConnectionPool;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
 import com.denizenscript.denizencore.DenizenCore;
 import com.denizenscript.denizencore.objects.core.ElementTag;
@@ -18,8 +19,13 @@ import com.denizenscript.denizencore.scripts.ScriptEntry;
 import com.denizenscript.denizencore.tags.core.EscapeTagUtil;
 
 import java.io.File;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -27,16 +33,16 @@ public class SQLCommand extends AbstractCommand implements Holdable {
 
     public SQLCommand() {
         setName("sql");
-        setSyntax("sql [id:<ID>] [disconnect/connect:<server> (username:<username>) (password:<secret>) (ssl:true/{false})/query:<query>/update:<update>]");
-        setRequiredArguments(2, 5);
+        setSyntax("sql [id:<ID>] [disconnect/connect:<server> (username:<username>) (password:<secret>) (ssl:true/{false}) (pool_size:<#>)/query:<query>/update:<update>/batch:<list>/next_page/close_cursor] (params:<list>) (rows:<list>) (cursor:<name>) (page_size:<#>/{100})");
+        setRequiredArguments(2, 9);
         isProcedural = false;
     }
 
     // <--[command]
     // @Name SQL
-    // @Syntax sql [id:<ID>] [disconnect/connect:<server> (username:<username>) (password:<secret>) (ssl:true/{false})/query:<query>/update:<update>]
+    // @Syntax sql [id:<ID>] [disconnect/connect:<server> (username:<username>) (password:<secret>) (ssl:true/{false}) (pool_size:<#>)/query:<query>/update:<update>/batch:<list>/next_page/close_cursor] (params:<list>) (rows:<list>) (cursor:<name>) (page_size:<#>/{100})
     // @Required 2
-    // @Maximum 5
+    // @Maximum 9
     // @Short Interacts with a MySQL server.
     // @Group core
     //
@@ -56,6 +62,30 @@ public class SQLCommand extends AbstractCommand implements Holdable {
     // You can switch whether SSL is used for the connection (defaults to false).
     //
     // Note that when using tag, it is recommended you escape unusual inputs to avoid SQL injection.
+    // Better yet, use "params:" to specify a ListTag of values to bind to '?' placeholders in the query or update, which avoids injection entirely.
+    // Values are bound as text, and the database converts them to the column type as needed (so values like '00123' keep their exact text).
+    // To bind a value with a specific type, use a MapTag with keys "type" and "value" in place of that value, like '<map[type=integer;value=5]>'.
+    // Valid types are "text", "integer", "decimal", "boolean", and "null" (which needs no value).
+    //
+    // Optionally specify "pool_size:" when connecting to open a pool of that many connections rather than one.
+    // A pooled connection runs each query or update on its own set of threads (one connection per thread), so that many queries can run at once,
+    // and caches prepared statements by their SQL text (up to a limit set in the Denizen config).
+    // Queries and updates on a pooled connection always run async, and are queued (up to a limit set in the Denizen config) when all connections are busy.
+    // See <@link tag util.sql_pool_stats> for pool usage statistics.
+    //
+    // To write many rows at once, either specify "batch:" with a list of update statements,
+    // or specify "update:" with '?' placeholders and "rows:" with a list of lists of values to bind, one list per row.
+    // Batches are sent to the server in groups (of a size set in the Denizen config) rather than one round trip per statement,
+    // and run as a single transaction: if any statement fails, none of them take effect.
+    // "batch_results" will contain the number of rows affected by each statement, in order (-2 if the driver doesn't report it).
+    // On an ID without a pool, each batch runs on a new connection of its own (closed afterward), so other queries, updates, and batches on that ID never become part of its transaction.
+    //
+    // For queries with large results, specify "cursor:<name>" with a query to read the results in pages rather than all at once.
+    // The query returns only the first "page_size" rows (default 100), and "has_more" indicates whether there are more.
+    // Use "next_page" with the same ID and cursor name to read the next page, and "close_cursor" to close a cursor early (it closes automatically once all rows are read).
+    // Each cursor uses its own connection, separate from the ID's connection or pool, until closed.
+    // That connection is read-only with auto-commit off (and for MySQL is opened with 'useCursorFetch=true'), so that the driver fetches rows from the server in batches of the page size rather than loading the whole result at once.
+    // Every cursor should be read until done or closed, as an open cursor holds database resources.
     //
     // The SQL command is merely a wrapper for SQL queries, and further usage details should be gathered from an official MySQL query reference rather than from Denizen command help.
     //
@@ -69,7 +99,10 @@ public class SQLCommand extends AbstractCommand implements Holdable {
     // <entry[saveName].result_list> returns a ListTag with (for each row retrieved) another ListTag. So if you would want to get the second column of the first row, you'd use <entry[saveName].result_list.get[1].get[2]>.
     // <entry[saveName].result_map> returns a ListTag with (for each row retrieved) a MapTag. So for example <entry[saveName].result_map.get[1].get[UUID]> for the UUID column of the first row.
     // <entry[saveName].affected_rows> returns how many rows were affected by an update command.
+    // <entry[saveName].batch_results> returns a ListTag of how many rows were affected by each statement of a batch.
+    // <entry[saveName].has_more> returns whether a cursor has more rows available to read via "next_page".
     // <util.sql_connections>
+    // <util.sql_pool_stats>
     //
     // @Usage
     // Use to connect to an SQL server.
@@ -102,14 +135,101 @@ public class SQLCommand extends AbstractCommand implements Holdable {
     // - narrate <entry[saveName2].result_list>
     //
     // @Usage
+    // Use to connect to an SQL server with a pool of 4 connections.
+    // - ~sql id:name connect:localhost:3306/test username:space password:<secret[sql_pw]> pool_size:4
+    //
+    // @Usage
+    // Use to query an SQL server with bound parameters.
+    // - ~sql id:name "query:SELECT id,column_name1 FROM things WHERE column_name2=? AND id>?;" params:<list[space|2]> save:saveName
+    // - narrate <entry[saveName].result_list>
+    //
+    // @Usage
+    // Use to insert many rows in one transaction.
+    // - ~sql id:name "update:INSERT INTO things VALUES (?, ?, ?);" rows:<list_single[<list[1|a|b]>].include_single[<list[2|c|d]>]> save:saveName
+    // - narrate "Inserted <entry[saveName].affected_rows> rows"
+    //
+    // @Usage
+    // Use to run several different updates in one transaction.
+    // - ~sql id:name "batch:<list[UPDATE things SET column_name1='x' WHERE id=1;|DELETE FROM things WHERE id=2;]>"
+    //
+    // @Usage
+    // Use to read a large table 500 rows at a time.
+    // - ~sql id:name "query:SELECT * FROM things;" cursor:export page_size:500 save:page
+    // - while <entry[page].has_more.if_null[false]>:
+    //     - foreach <entry[page].result_map> as:row:
+    //         - narrate <[row.id]>
+    //     - ~sql id:name cursor:export next_page save:page
+    //
+    // @Usage
     // Use to disconnect from an SQL server.
     // - sql disconnect id:name
     // -->
 
     public static Map<String, Connection> connections = new HashMap<>();
 
+    public static Map<String, SQLConnectionPool> pools = new HashMap<>();
+
+    /**
+     * The details used to connect each ID, for opening extra connections of its own (eg for cursors).
+     */
+    public static class SQLConnectInfo {
+
+        public String username, password, server, ssl;
+    }
+
+    public static Map<String, SQLConnectInfo> connectInfo = new HashMap<>();
+
+    /**
+     * An open query result being read in pages. All use must be synchronized on the cursor, as pages are read async.
+     */
+    public static class SQLCursor {
+
+        public String key;
+
+        public Connection connection;
+
+        public Statement statement;
+
+        public ResultSet resultSet;
+
+        public int pageSize;
+
+        public boolean closed;
+
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                resultSet.close();
+                statement.close();
+                connection.close();
+            }
+            catch (SQLException ex) {
+                Debug.echoError(ex);
+            }
+        }
+    }
+
+    /**
+     * Open cursors, keyed by connection ID and cursor name.
+     */
+    public static Map<String, SQLCursor> cursors = new HashMap<>();
+
     @Override
     public void onDisable() {
+        for (SQLCursor cursor : cursors.values()) {
+            synchronized (cursor) {
+                cursor.close();
+            }
+        }
+        cursors.clear();
+        for (SQLConnectionPool pool : pools.values()) {
+            pool.close();
+        }
+        pools.clear();
+        connectInfo.clear();
         for (Map.Entry<String, Connection> entry : connections.entrySet()) {
             try {
                 entry.getValue().close();
@@ -147,6 +267,15 @@ public class SQLCommand extends AbstractCommand implements Holdable {
                 scriptEntry.addObject("action", new ElementTag("UPDATE"));
                 scriptEntry.addObject("query", arg.asElement());
             }
+            else if (!scriptEntry.hasObject("query")
+                    && arg.matchesPrefix("batch")) {
+                scriptEntry.addObject("action", new ElementTag("BATCH"));
+                scriptEntry.addObject("batch", arg.asType(ListTag.class));
+            }
+            else if (!scriptEntry.hasObject("rows")
+                    && arg.matchesPrefix("rows")) {
+                scriptEntry.addObject("rows", arg.asType(ListTag.class));
+            }
             else if (!scriptEntry.hasObject("username")
                     && arg.matchesPrefix("username")) {
                 scriptEntry.addObject("username", arg.asElement());
@@ -159,6 +288,32 @@ public class SQLCommand extends AbstractCommand implements Holdable {
                     && arg.matchesPrefix("passwordfile")) {
                 scriptEntry.addObject("passwordfile", arg.asElement());
             }
+            else if (!scriptEntry.hasObject("pool_size")
+                    && arg.matchesPrefix("pool_size")
+                    && arg.asElement().isInt()) {
+                scriptEntry.addObject("pool_size", arg.asElement());
+            }
+            else if (!scriptEntry.hasObject("action")
+                    && arg.matches("next_page")) {
+                scriptEntry.addObject("action", new ElementTag("NEXT_PAGE"));
+            }
+            else if (!scriptEntry.hasObject("action")
+                    && arg.matches("close_cursor")) {
+                scriptEntry.addObject("action", new ElementTag("CLOSE_CURSOR"));
+            }
+            else if (!scriptEntry.hasObject("cursor")
+                    && arg.matchesPrefix("cursor")) {
+                scriptEntry.addObject("cursor", arg.asElement());
+            }
+            else if (!scriptEntry.hasObject("page_size")
+                    && arg.matchesPrefix("page_size")
+                    && arg.asElement().isInt()) {
+                scriptEntry.addObject("page_size", arg.asElement());
+            }
+            else if (!scriptEntry.hasObject("params")
+                    && arg.matchesPrefix("params")) {
+                scriptEntry.addObject("params", arg.asType(ListTag.class));
+            }
             else if (!scriptEntry.hasObject("ssl")
                     && arg.matchesPrefix("ssl")
                     && arg.asElement().isBoolean()) {
@@ -193,11 +348,19 @@ public class SQLCommand extends AbstractCommand implements Holdable {
         final ElementTag ssl = scriptEntry.getElement("ssl");
         final ElementTag sqlID = scriptEntry.getElement("sqlid");
         final ElementTag query = scriptEntry.getElement("query");
+        final ElementTag poolSize = scriptEntry.getElement("pool_size");
+        final ListTag params = scriptEntry.getObjectTag("params");
+        final ElementTag cursorName = scriptEntry.getElement("cursor");
+        final ElementTag pageSize = scriptEntry.getElement("page_size");
+        final ListTag batch = scriptEntry.getObjectTag("batch");
+        final ListTag batchRows = scriptEntry.getObjectTag("rows");
         if (scriptEntry.dbCallShouldDebug()) {
-            Debug.report(scriptEntry, getName(), sqlID, action, server, username, passwordFile, query);
+            Debug.report(scriptEntry, getName(), sqlID, action, server, username, passwordFile, query, poolSize, params, cursorName, pageSize, batch, batchRows);
         }
-        if (!action.asString().equalsIgnoreCase("connect") &&
-                (!action.asString().equalsIgnoreCase("query") || !scriptEntry.shouldWaitFor())) {
+        final String id = CoreUtilities.toUpperCase(sqlID.asString());
+        boolean waitable = action.asString().equalsIgnoreCase("query") || action.asString().equalsIgnoreCase("next_page")
+                || action.asString().equalsIgnoreCase("batch") || batchRows != null;
+        if (!action.asString().equalsIgnoreCase("connect") && (!waitable || !scriptEntry.shouldWaitFor())) {
             scriptEntry.setFinished(true);
         }
         try {
@@ -248,12 +411,40 @@ public class SQLCommand extends AbstractCommand implements Holdable {
                     }
                     passwordRaw = passwordRaw.trim();
                 }
-                if (connections.containsKey(sqlID.asString().toUpperCase())) {
+                if (connections.containsKey(id) || pools.containsKey(id)) {
                     Debug.echoError(scriptEntry, "Already connected to a server with ID '" + sqlID.asString() + "'!");
                     scriptEntry.setFinished(true);
                     return;
                 }
                 final String passwordToUse = passwordRaw;
+                SQLConnectInfo info = new SQLConnectInfo();
+                info.username = username.asString();
+                info.password = passwordRaw;
+                info.server = server.asString();
+                info.ssl = ssl.asString();
+                if (poolSize != null) {
+                    if (poolSize.asInt() < 1) {
+                        Debug.echoError(scriptEntry, "Pool size must be at least 1.");
+                        scriptEntry.setFinished(true);
+                        return;
+                    }
+                    SQLConnectionPool pool = new SQLConnectionPool(id, poolSize.asInt(), Math.max(1, CoreConfiguration.sqlPoolQueueLimit),
+                            () -> getConnection(username.asString(), passwordToUse, server.asString(), ssl.asString()));
+                    // Open the first connection up-front, to verify the connection details are valid
+                    pool.submit(worker -> {
+                        worker.getConnection();
+                        DenizenCore.runOnMainThread(() -> {
+                            pools.put(id, pool);
+                            connectInfo.put(id, info);
+                            Debug.echoDebug(scriptEntry, "Successfully connected to " + server + " with a pool of " + pool.size + " connections");
+                            scriptEntry.setFinished(true);
+                        });
+                    }, ex -> DenizenCore.runOnMainThread(() -> {
+                        pool.close();
+                        echoSQLError(scriptEntry, ex);
+                    }));
+                    return;
+                }
                 DenizenCore.runAsync(() -> {
                     Connection con = null;
                     if (CoreConfiguration.debugVerbose) {
@@ -277,7 +468,8 @@ public class SQLCommand extends AbstractCommand implements Holdable {
                     final Connection conn = con;
                     if (con != null) {
                         DenizenCore.runOnMainThread(() -> {
-                            connections.put(sqlID.asString().toUpperCase(), conn);
+                            connections.put(id, conn);
+                            connectInfo.put(id, info);
                             Debug.echoDebug(scriptEntry, "Successfully connected to " + server);
                             scriptEntry.setFinished(true);
                         });
@@ -293,14 +485,22 @@ public class SQLCommand extends AbstractCommand implements Holdable {
                 });
             }
             else if (action.asString().equalsIgnoreCase("disconnect")) {
-                Connection con = connections.get(sqlID.asString().toUpperCase());
+                closeCursors(id);
+                connectInfo.remove(id);
+                SQLConnectionPool pool = pools.remove(id);
+                if (pool != null) {
+                    pool.close();
+                    Debug.echoDebug(scriptEntry, "Disconnected from '" + sqlID.asString() + "'.");
+                    return;
+                }
+                Connection con = connections.get(id);
                 if (con == null) {
                     Debug.echoError(scriptEntry, "Not connected to server with ID '" + sqlID.asString() + "'!");
                     scriptEntry.setFinished(true);
                     return;
                 }
                 con.close();
-                connections.remove(sqlID.asString().toUpperCase());
+                connections.remove(id);
                 Debug.echoDebug(scriptEntry, "Disconnected from '" + sqlID.asString() + "'.");
             }
             else if (action.asString().equalsIgnoreCase("query")) {
@@ -309,17 +509,15 @@ public class SQLCommand extends AbstractCommand implements Holdable {
                     scriptEntry.setFinished(true);
                     return;
                 }
-                final Connection con = connections.get(sqlID.asString().toUpperCase());
-                if (con == null) {
-                    Debug.echoError(scriptEntry, "Not connected to server with ID '" + sqlID.asString() + "'!");
-                    scriptEntry.setFinished(true);
+                Debug.echoDebug(scriptEntry, "Running query " + query.asString());
+                if (cursorName != null) {
+                    openCursor(scriptEntry, id, sqlID, cursorName, query.asString(), params, pageSize == null ? 100 : Math.max(1, pageSize.asInt()));
                     return;
                 }
-                Debug.echoDebug(scriptEntry, "Running query " + query.asString());
-                Runnable doQuery = () -> {
+                SQLTask doQuery = (con, worker) -> {
+                    Statement statement = prepareStatement(con, worker, query.asString(), params, false);
                     try {
-                        Statement statement = con.createStatement();
-                        ResultSet set = statement.executeQuery(query.asString());
+                        ResultSet set = statement instanceof PreparedStatement prepared ? prepared.executeQuery() : statement.executeQuery(query.asString());
                         ResultSetMetaData rsmd = set.getMetaData();
                         final int columns = rsmd.getColumnCount();
                         int count = 0;
@@ -341,6 +539,7 @@ public class SQLCommand extends AbstractCommand implements Holdable {
                             resultList.addObject(subList);
                             resultMap.addObject(subMap);
                         }
+                        set.close();
                         scriptEntry.saveObject("result", rows);
                         scriptEntry.saveObject("result_list", resultList);
                         scriptEntry.saveObject("result_map", resultMap);
@@ -350,21 +549,42 @@ public class SQLCommand extends AbstractCommand implements Holdable {
                             scriptEntry.setFinished(true);
                         });
                     }
-                    catch (final Exception ex) {
-                        DenizenCore.runOnMainThread(() -> {
-                            Debug.echoError(scriptEntry, "SQL Exception: " + ex.getMessage());
-                            scriptEntry.setFinished(true);
-                            if (CoreConfiguration.debugVerbose) {
-                                Debug.echoError(scriptEntry, ex);
-                            }
-                        });
+                    finally {
+                        if (worker == null) {
+                            statement.close();
+                        }
                     }
                 };
+                runTask(scriptEntry, id, sqlID, doQuery);
+            }
+            else if (action.asString().equalsIgnoreCase("next_page") || action.asString().equalsIgnoreCase("close_cursor")) {
+                if (cursorName == null) {
+                    Debug.echoError(scriptEntry, "Must specify a cursor!");
+                    scriptEntry.setFinished(true);
+                    return;
+                }
+                String cursorKey = id + ":" + CoreUtilities.toUpperCase(cursorName.asString());
+                SQLCursor cursor = cursors.get(cursorKey);
+                if (cursor == null) {
+                    Debug.echoError(scriptEntry, "No open cursor named '" + cursorName.asString() + "' for ID '" + sqlID.asString() + "'!");
+                    scriptEntry.setFinished(true);
+                    return;
+                }
+                if (action.asString().equalsIgnoreCase("close_cursor")) {
+                    cursors.remove(cursorKey);
+                    DenizenCore.runAsync(() -> {
+                        synchronized (cursor) {
+                            cursor.close();
+                        }
+                    });
+                    return;
+                }
+                Runnable readPage = () -> readCursorPage(scriptEntry, cursor);
                 if (scriptEntry.shouldWaitFor()) {
-                    DenizenCore.runAsync(doQuery);
+                    DenizenCore.runAsync(readPage);
                 }
                 else {
-                    doQuery.run();
+                    readPage.run();
                 }
             }
             else if (action.asString().equalsIgnoreCase("update")) {
@@ -373,17 +593,20 @@ public class SQLCommand extends AbstractCommand implements Holdable {
                     scriptEntry.setFinished(true);
                     return;
                 }
-                final Connection con = connections.get(sqlID.asString().toUpperCase());
-                if (con == null) {
-                    Debug.echoError(scriptEntry, "Not connected to server with ID '" + sqlID.asString() + "'!");
-                    scriptEntry.setFinished(true);
+                if (batchRows != null) {
+                    List<ListTag> rowParams = new ArrayList<>(batchRows.size());
+                    for (ObjectTag row : batchRows.objectForms) {
+                        rowParams.add(ListTag.getListFor(row, scriptEntry.getContext()));
+                    }
+                    Debug.echoDebug(scriptEntry, "Running batch update of " + rowParams.size() + " rows: " + query.asString());
+                    runIsolatedTask(scriptEntry, id, sqlID, (con, worker) -> runBatch(scriptEntry, con, worker, query.asString(), rowParams, null));
                     return;
                 }
                 Debug.echoDebug(scriptEntry, "Running update " + query.asString());
-                Runnable doUpdate = () -> {
+                SQLTask doUpdate = (con, worker) -> {
+                    Statement statement = prepareStatement(con, worker, query.asString(), params, true);
                     try {
-                        Statement statement = con.createStatement();
-                        int affected = statement.executeUpdate(query.asString(), Statement.RETURN_GENERATED_KEYS);
+                        int affected = statement instanceof PreparedStatement prepared ? prepared.executeUpdate() : statement.executeUpdate(query.asString(), Statement.RETURN_GENERATED_KEYS);
                         scriptEntry.saveObject("affected_rows", new ElementTag(affected));
                         ResultSet set = statement.getGeneratedKeys();
                         ResultSetMetaData rsmd = set.getMetaData();
@@ -400,6 +623,7 @@ public class SQLCommand extends AbstractCommand implements Holdable {
                             rows.add(current.toString());
                             resultList.addObject(subList);
                         }
+                        set.close();
                         scriptEntry.saveObject("result", rows);
                         scriptEntry.saveObject("result_list", resultList);
                         DenizenCore.runOnMainThread(() -> {
@@ -408,21 +632,18 @@ public class SQLCommand extends AbstractCommand implements Holdable {
                             scriptEntry.setFinished(true);
                         });
                     }
-                    catch (Exception ex) {
-                        DenizenCore.runOnMainThread(() -> {
-                            Debug.echoError(scriptEntry, "SQL Exception: " + ex.getMessage());
-                            if (CoreConfiguration.debugVerbose) {
-                                Debug.echoError(scriptEntry, ex);
-                            }
-                        });
+                    finally {
+                        if (worker == null) {
+                            statement.close();
+                        }
                     }
                 };
-                if (scriptEntry.shouldWaitFor()) {
-                    DenizenCore.runAsync(doUpdate);
-                }
-                else {
-                    doUpdate.run();
-                }
+                runTask(scriptEntry, id, sqlID, doUpdate);
+            }
+            else if (action.asString().equalsIgnoreCase("batch")) {
+                List<String> statements = new ArrayList<>(batch);
+                Debug.echoDebug(scriptEntry, "Running batch of " + statements.size() + " statements");
+                runIsolatedTask(scriptEntry, id, sqlID, (con, worker) -> runBatch(scriptEntry, con, worker, null, null, statements));
             }
             else {
                 Debug.echoError(scriptEntry, "Unknown action '" + action.asString() + "'");
@@ -436,7 +657,395 @@ public class SQLCommand extends AbstractCommand implements Holdable {
         }
     }
 
+    /**
+     * Runs either one SQL text for each set of row parameters, or each of a list of SQL statements, as JDBC batches within a single transaction.
+     * The connection's auto-commit setting is restored afterward. On failure, the whole transaction is rolled back and the exception rethrown.
+     */
+    public static void runBatch(ScriptEntry scriptEntry, Connection con, SQLConnectionPool.SQLWorkerThread worker, String sql, List<ListTag> rowParams, List<String> statements) throws SQLException {
+        int total = rowParams != null ? rowParams.size() : statements.size();
+        int chunkSize = Math.max(1, CoreConfiguration.sqlBatchSize);
+        ListTag results = new ListTag(total);
+        long affected = 0;
+        boolean wasAutoCommit = con.getAutoCommit();
+        Statement statement = null;
+        try {
+            if (wasAutoCommit) {
+                con.setAutoCommit(false);
+            }
+            if (rowParams != null) {
+                statement = worker != null ? worker.prepare(sql, false) : con.prepareStatement(sql);
+            }
+            else {
+                statement = con.createStatement();
+            }
+            for (int start = 0; start < total; start += chunkSize) {
+                int end = Math.min(total, start + chunkSize);
+                for (int i = start; i < end; i++) {
+                    if (rowParams != null) {
+                        PreparedStatement prepared = (PreparedStatement) statement;
+                        bindParams(prepared, rowParams.get(i));
+                        prepared.addBatch();
+                    }
+                    else {
+                        statement.addBatch(statements.get(i));
+                    }
+                }
+                for (int count : statement.executeBatch()) {
+                    results.addObject(new ElementTag(count));
+                    if (count > 0) {
+                        affected += count;
+                    }
+                }
+            }
+            con.commit();
+        }
+        catch (SQLException ex) {
+            try {
+                con.rollback();
+            }
+            catch (SQLException ignored) {
+            }
+            throw ex;
+        }
+        finally {
+            if (statement != null) {
+                if (worker == null || rowParams == null) {
+                    statement.close();
+                }
+                else {
+                    statement.clearBatch();
+                }
+            }
+            if (wasAutoCommit) {
+                con.setAutoCommit(true);
+            }
+        }
+        scriptEntry.saveObject("batch_results", results);
+        scriptEntry.saveObject("affected_rows", new ElementTag(affected));
+        final long finalAffected = affected;
+        DenizenCore.runOnMainThread(() -> {
+            Debug.echoDebug(scriptEntry, "Batch of " + total + " statements updated " + finalAffected + " rows");
+            scriptEntry.setFinished(true);
+        });
+    }
+
+    /**
+     * Closes all open cursors for a connection ID.
+     */
+    public static void closeCursors(String id) {
+        Iterator<SQLCursor> iterator = cursors.values().iterator();
+        while (iterator.hasNext()) {
+            SQLCursor cursor = iterator.next();
+            if (cursor.key.startsWith(id + ":")) {
+                iterator.remove();
+                synchronized (cursor) {
+                    cursor.close();
+                }
+            }
+        }
+    }
+
+    public void openCursor(ScriptEntry scriptEntry, String id, ElementTag sqlID, ElementTag cursorName, String query, ListTag params, int pageSize) {
+        String cursorKey = id + ":" + CoreUtilities.toUpperCase(cursorName.asString());
+        if (cursors.containsKey(cursorKey)) {
+            Debug.echoError(scriptEntry, "A cursor named '" + cursorName.asString() + "' is already open for ID '" + sqlID.asString() + "'!");
+            scriptEntry.setFinished(true);
+            return;
+        }
+        SQLConnectInfo info = connectInfo.get(id);
+        if (info == null) {
+            Debug.echoError(scriptEntry, "Not connected to server with ID '" + sqlID.asString() + "'!");
+            scriptEntry.setFinished(true);
+            return;
+        }
+        SQLCursor cursor = new SQLCursor();
+        cursor.key = cursorKey;
+        cursor.pageSize = pageSize;
+        cursors.put(cursorKey, cursor);
+        Runnable open = () -> {
+            synchronized (cursor) {
+                try {
+                    cursor.connection = getConnection(info, true);
+                    cursor.connection.setAutoCommit(false);
+                    cursor.connection.setReadOnly(true);
+                    if (params == null) {
+                        cursor.statement = cursor.connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    }
+                    else {
+                        PreparedStatement prepared = cursor.connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                        bindParams(prepared, params);
+                        cursor.statement = prepared;
+                    }
+                    cursor.statement.setFetchSize(pageSize);
+                    cursor.resultSet = cursor.statement instanceof PreparedStatement prepared ? prepared.executeQuery() : cursor.statement.executeQuery(query);
+                }
+                catch (Throwable ex) {
+                    DenizenCore.runOnMainThread(() -> {
+                        cursors.remove(cursorKey);
+                        echoSQLError(scriptEntry, ex);
+                    });
+                    if (cursor.connection != null) {
+                        try {
+                            cursor.connection.close();
+                        }
+                        catch (SQLException ignored) {
+                        }
+                    }
+                    return;
+                }
+            }
+            readCursorPage(scriptEntry, cursor);
+        };
+        if (scriptEntry.shouldWaitFor()) {
+            DenizenCore.runAsync(open);
+        }
+        else {
+            open.run();
+        }
+    }
+
+    /**
+     * Reads the next page of rows from a cursor into the script entry's results, and closes the cursor if no rows remain.
+     */
+    public static void readCursorPage(ScriptEntry scriptEntry, SQLCursor cursor) {
+        synchronized (cursor) {
+            if (cursor.closed) {
+                DenizenCore.runOnMainThread(() -> {
+                    Debug.echoError(scriptEntry, "That cursor is already closed!");
+                    scriptEntry.setFinished(true);
+                });
+                return;
+            }
+            try {
+                ResultSetMetaData rsmd = cursor.resultSet.getMetaData();
+                final int columns = rsmd.getColumnCount();
+                int count = 0;
+                ListTag rows = new ListTag();
+                ListTag resultList = new ListTag();
+                ListTag resultMap = new ListTag();
+                boolean hasMore = true;
+                while (count < cursor.pageSize) {
+                    if (!cursor.resultSet.next()) {
+                        hasMore = false;
+                        break;
+                    }
+                    count++;
+                    StringBuilder current = new StringBuilder();
+                    ListTag subList = new ListTag();
+                    MapTag subMap = new MapTag();
+                    for (int i = 0; i < columns; i++) {
+                        String value = cursor.resultSet.getString(i + 1);
+                        current.append(EscapeTagUtil.escape(value)).append("/");
+                        subList.addObject(new ElementTag(value));
+                        subMap.putObject(rsmd.getColumnLabel(i + 1), new ElementTag(value));
+                    }
+                    rows.add(current.toString());
+                    resultList.addObject(subList);
+                    resultMap.addObject(subMap);
+                }
+                if (!hasMore) {
+                    cursor.close();
+                }
+                scriptEntry.saveObject("result", rows);
+                scriptEntry.saveObject("result_list", resultList);
+                scriptEntry.saveObject("result_map", resultMap);
+                scriptEntry.saveObject("has_more", new ElementTag(hasMore));
+                final int finalCount = count;
+                final boolean finalHasMore = hasMore;
+                DenizenCore.runOnMainThread(() -> {
+                    if (!finalHasMore) {
+                        cursors.remove(cursor.key);
+                    }
+                    Debug.echoDebug(scriptEntry, "Got a page of " + columns + " columns and " + finalCount + " rows" + (finalHasMore ? "" : " (cursor finished)"));
+                    scriptEntry.setFinished(true);
+                });
+            }
+            catch (Throwable ex) {
+                cursor.close();
+                DenizenCore.runOnMainThread(() -> {
+                    cursors.remove(cursor.key);
+                    echoSQLError(scriptEntry, ex);
+                });
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface SQLTask {
+
+        /**
+         * Runs against the given connection. 'worker' is the pool thread that owns the connection, or null if it's a plain unpooled connection.
+         */
+        void run(Connection connection, SQLConnectionPool.SQLWorkerThread worker) throws Exception;
+    }
+
+    public static void echoSQLError(ScriptEntry scriptEntry, Throwable ex) {
+        Debug.echoError(scriptEntry, "SQL Exception: " + ex.getMessage());
+        scriptEntry.setFinished(true);
+        if (CoreConfiguration.debugVerbose) {
+            Debug.echoError(scriptEntry, ex);
+        }
+    }
+
+    /**
+     * Runs a task against the connection or pool with the given ID: on the pool's threads if pooled, otherwise async if the entry is waited for, otherwise immediately.
+     */
+    public static void runTask(ScriptEntry scriptEntry, String id, ElementTag sqlID, SQLTask task) {
+        SQLConnectionPool pool = pools.get(id);
+        if (pool != null) {
+            if (!pool.submit(worker -> task.run(worker.getConnection(), worker), ex -> DenizenCore.runOnMainThread(() -> echoSQLError(scriptEntry, ex)))) {
+                Debug.echoError(scriptEntry, "SQL connection pool '" + sqlID.asString() + "' has too many queued tasks, cannot run another!");
+                scriptEntry.setFinished(true);
+            }
+            return;
+        }
+        final Connection con = connections.get(id);
+        if (con == null) {
+            Debug.echoError(scriptEntry, "Not connected to server with ID '" + sqlID.asString() + "'!");
+            scriptEntry.setFinished(true);
+            return;
+        }
+        Runnable runnable = () -> {
+            try {
+                task.run(con, null);
+            }
+            catch (Throwable ex) {
+                DenizenCore.runOnMainThread(() -> echoSQLError(scriptEntry, ex));
+            }
+        };
+        if (scriptEntry.shouldWaitFor()) {
+            DenizenCore.runAsync(runnable);
+        }
+        else {
+            runnable.run();
+        }
+    }
+
+    /**
+     * Runs a task that changes connection state (such as a transaction) against the connection or pool with the given ID.
+     * Pool workers each own their connection, so pooled tasks run as normal. Otherwise, the task gets a new connection of its own that's closed afterward,
+     * rather than sharing the ID's connection with other tasks that may be running at the same time.
+     */
+    public static void runIsolatedTask(ScriptEntry scriptEntry, String id, ElementTag sqlID, SQLTask task) {
+        if (pools.containsKey(id)) {
+            runTask(scriptEntry, id, sqlID, task);
+            return;
+        }
+        SQLConnectInfo info = connectInfo.get(id);
+        if (info == null) {
+            Debug.echoError(scriptEntry, "Not connected to server with ID '" + sqlID.asString() + "'!");
+            scriptEntry.setFinished(true);
+            return;
+        }
+        Runnable runnable = () -> {
+            try (Connection con = getConnection(info, false)) {
+                task.run(con, null);
+            }
+            catch (Throwable ex) {
+                DenizenCore.runOnMainThread(() -> echoSQLError(scriptEntry, ex));
+            }
+        };
+        if (scriptEntry.shouldWaitFor()) {
+            DenizenCore.runAsync(runnable);
+        }
+        else {
+            runnable.run();
+        }
+    }
+
+    /**
+     * Gets a statement for the given SQL text, with parameters bound if any.
+     * For pool workers, this is a cached prepared statement that must not be closed. Otherwise, it's a new statement that the caller must close.
+     * A plain (unprepared) statement is returned only for unpooled connections without parameters.
+     */
+    public static Statement prepareStatement(Connection con, SQLConnectionPool.SQLWorkerThread worker, String sql, ListTag params, boolean returnGeneratedKeys) throws SQLException {
+        if (worker == null && params == null) {
+            return con.createStatement();
+        }
+        PreparedStatement statement;
+        if (worker != null) {
+            statement = worker.prepare(sql, returnGeneratedKeys);
+        }
+        else {
+            statement = returnGeneratedKeys ? con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS) : con.prepareStatement(sql);
+        }
+        if (params != null) {
+            bindParams(statement, params);
+        }
+        return statement;
+    }
+
+    public static void bindParams(PreparedStatement statement, ListTag params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            ObjectTag param = params.getObject(i);
+            MapTag typed = null;
+            if (param instanceof MapTag) {
+                typed = (MapTag) param;
+            }
+            else if (param.toString().startsWith("map@[")) {
+                typed = MapTag.valueOf(param.toString(), CoreUtilities.noDebugContext);
+            }
+            if (typed != null && typed.getObject("type") != null) {
+                bindTypedParam(statement, i + 1, typed);
+            }
+            else {
+                statement.setString(i + 1, param.asElement().asString());
+            }
+        }
+    }
+
+    public static void bindTypedParam(PreparedStatement statement, int index, MapTag param) throws SQLException {
+        String type = CoreUtilities.toLowerCase(param.getObject("type").toString());
+        ObjectTag valueObject = param.getObject("value");
+        if (type.equals("null")) {
+            statement.setNull(index, Types.NULL);
+            return;
+        }
+        if (valueObject == null) {
+            throw new SQLException("Param " + index + " of type '" + type + "' is missing its 'value'.");
+        }
+        String value = valueObject.toString();
+        try {
+            switch (type) {
+                case "text":
+                    statement.setString(index, value);
+                    break;
+                case "integer":
+                    BigInteger integer = new BigInteger(value);
+                    if (integer.bitLength() < 64) {
+                        statement.setLong(index, integer.longValue());
+                    }
+                    else {
+                        statement.setBigDecimal(index, new BigDecimal(integer));
+                    }
+                    break;
+                case "decimal":
+                    statement.setBigDecimal(index, new BigDecimal(value));
+                    break;
+                case "boolean":
+                    statement.setBoolean(index, CoreUtilities.equalsIgnoreCase(value, "true"));
+                    break;
+                default:
+                    throw new SQLException("Param " + index + " has unknown type '" + type + "'.");
+            }
+        }
+        catch (NumberFormatException ex) {
+            throw new SQLException("Param " + index + " value '" + value + "' is not a valid " + type + ".");
+        }
+    }
+
     public Connection getConnection(String userName, String password, String server, String ssl) throws SQLException {
+        return getConnection(userName, password, server, ssl, false);
+    }
+
+    public static Connection getConnection(SQLConnectInfo info, boolean forCursor) throws SQLException {
+        return getConnection(info.username, info.password, info.server, info.ssl, forCursor);
+    }
+
+    /**
+     * Opens a new connection. If 'forCursor' is true, MySQL connections are opened with server-side cursor fetching, so result sets honor the statement fetch size.
+     */
+    public static Connection getConnection(String userName, String password, String server, String ssl, boolean forCursor) throws SQLException {
         Properties connectionProps = new Properties();
         connectionProps.put("user", userName);
         connectionProps.put("password", password);
@@ -459,6 +1068,9 @@ public class SQLCommand extends AbstractCommand implements Holdable {
             }
             server = "mysql://" + server;
         }
+        if (forCursor && server.startsWith("mysql://")) {
+            connectionProps.put("useCursorFetch", "true");
+        }
         return DriverManager.getConnection("jdbc:" + server, connectionProps);
     }
 }
@@ -7,29 +7,31 @@ import com.denizenscript.denizencore.scripts.ScriptEntry;
 import com.denizenscript.denizencore.scripts.commands.AbstractCommand;
 import com.denizenscript.denizencore.scripts.commands.Holdable;
 import com.denizenscript.denizencore.scripts.commands.generator.*;
+import com.denizenscript.denizencore.tags.TagContext;
 import com.denizenscript.denizencore.utilities.CoreConfiguration;
 import com.denizenscript.denizencore.utilities.CoreUtilities;
-import com.denizenscript.denizencore.utilities.ReflectionHelper;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
-import com.denizenscript.denizencore.utilities.scheduling.Schedulable;
 import com.denizenscript.denizencore.utilities.text.StringHolder;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class WebGetCommand extends AbstractCommand implements Holdable {
 
     public WebGetCommand() {
         setName("webget");
-        setSyntax("webget [<url>] (data:<data>) (method:<method>) (headers:<map>) (timeout:<duration>/{10s}) (savefile:<path>) (hide_failure)");
-        setRequiredArguments(1, 7);
+        setSyntax("webget [<url>/batch:<list[map]>] (data:<data>) (method:<method>) (headers:<map>) (timeout:<duration>/{10s}) (savefile:<path>) (hide_failure) (max_concurrent:<#>/{8})");
+        setRequiredArguments(1, 8);
         isProcedural = false;
         autoCompile();
         addRemappedPrefixes("data", "post");
@@ -38,9 +40,9 @@ public class WebGetCommand extends AbstractCommand implements Holdable {
 
     // <--[command]
     // @Name Webget
-    // @Syntax webget [<url>] (data:<data>) (method:<method>) (headers:<map>) (timeout:<duration>/{10s}) (savefile:<path>) (hide_failure)
+    // @Syntax webget [<url>/batch:<list[map]>] (data:<data>) (method:<method>) (headers:<map>) (timeout:<duration>/{10s}) (savefile:<path>) (hide_failure) (max_concurrent:<#>/{8})
     // @Required 1
-    // @Maximum 7
+    // @Maximum 8
     // @Short Gets the contents of a web page or API response.
     // @Synonyms wget
     // @Group core
@@ -69,6 +71,12 @@ public class WebGetCommand extends AbstractCommand implements Holdable {
     //
     // Optionally, specify 'hide_failure' to indicate that connection errors are acceptable and shouldn't display in logs.
     //
+    // Instead of a single URL, you can specify "batch:" as a ListTag of MapTags to send many requests at once.
+    // Each map must have a "url" key, and may have "data", "method", "headers", and "timeout" keys, which otherwise default to the values given to the command.
+    // Requests in a batch are sent concurrently, with at most "max_concurrent" (default 8) in progress at any one time.
+    // The command completes once every request in the batch is done, with all results available at once via <entry[saveName].results>.
+    // "savefile" cannot be used with a batch.
+    //
     // This command accepts secret inputs via <@link ObjectType SecretTag> as the URL or as the value of any header.
     // Note that you cannot mix secret with non-secret - meaning, "webget <secret[my_secret]>" and "webget https://example.com" are both valid, but "webget https://example.com/<secret[my_secret]>" is not.
     // Similarly, for headers, each individual header value can either be a secret or not a secret.
@@ -80,6 +88,7 @@ public class WebGetCommand extends AbstractCommand implements Holdable {
     // <entry[saveName].result_headers> returns a MapTag of the headers returned from the webserver. Every value in the result is a list.
     // <entry[saveName].status> returns the HTTP status code of the webget. This is null only if webget failed to connect to the url.
     // <entry[saveName].time_ran> returns a DurationTag indicating how long the web connection processing took.
+    // <entry[saveName].results> returns a ListTag of MapTags for a batch, in the same order as the input, with keys "failed", "status", "result", "result_binary", "result_headers", and "time_ran" (matching the single-request entry tags). "failed" for the batch as a whole is true if any request failed.
     // <ElementTag.url_encode>
     //
     // @Usage
@@ -97,6 +106,12 @@ public class WebGetCommand extends AbstractCommand implements Holdable {
     // - narrate <entry[request].result>
     //
     // @Usage
+    // Use to fetch several pages at once.
+    // - ~webget batch:<list[<map[url=https://example.com/a]>|<map[url=https://example.com/b;method=POST;data=hello]>]> save:pages
+    // - foreach <entry[pages].results> as:page:
+    //     - narrate "<[page.status]>: <[page.result]>"
+    //
+    // @Usage
     // Use to retrieve and load an API response into yaml.
     // - ~webget https://api.mojang.com/users/profiles/minecraft/<player.name> save:request
     // - yaml loadtext:<entry[request].result> id:player_data
@@ -106,13 +121,15 @@ public class WebGetCommand extends AbstractCommand implements Holdable {
     public enum Method { GET, POST, HEAD, OPTIONS, PUT, DELETE, TRACE, PATCH }
 
     public static void autoExecute(ScriptEntry scriptEntry,
-                                   @ArgLinear @ArgName("url") @ArgRaw ElementTag originalUrl,
+                                   @ArgLinear @ArgName("url") @ArgRaw @ArgDefaultNull ElementTag originalUrl,
                                    @ArgPrefixed @ArgName("data") @ArgDefaultNull ObjectTag data,
                                    @ArgPrefixed @ArgName("method") @ArgDefaultNull Method method,
                                    @ArgName("hide_failure") boolean hideFailure,
                                    @ArgPrefixed @ArgName("timeout") @ArgDefaultText("10s") DurationTag timeout,
                                    @ArgPrefixed @ArgName("headers") @ArgDefaultNull ObjectTag headersLegacyCompat,
-                                   @ArgPrefixed @ArgName("savefile") @ArgDefaultNull String saveFile) {
+                                   @ArgPrefixed @ArgName("savefile") @ArgDefaultNull String saveFile,
+                                   @ArgPrefixed @ArgName("batch") @ArgDefaultNull ListTag batch,
+                                   @ArgPrefixed @ArgName("max_concurrent") @ArgDefaultText("8") int maxConcurrent) {
         MapTag headers = null;
         if (headersLegacyCompat != null && headersLegacyCompat.shouldBeType(MapTag.class)) {
             headers = headersLegacyCompat.asType(MapTag.class, scriptEntry.context);
@@ -130,23 +147,127 @@ public class WebGetCommand extends AbstractCommand implements Holdable {
             Debug.echoError(scriptEntry, "WebGet disabled in config.yml!");
             return;
         }
+        if (batch != null) {
+            if (originalUrl != null || saveFile != null) {
+                Debug.echoError(scriptEntry, "Cannot specify a URL or savefile alongside a batch.");
+                return;
+            }
+            executeBatch(scriptEntry, batch, data, method, hideFailure, timeout, headers, maxConcurrent);
+            return;
+        }
+        if (originalUrl == null) {
+            Debug.echoError(scriptEntry, "Must specify a URL or a batch.");
+            return;
+        }
+        PreparedRequest prepared = prepareRequest(scriptEntry.context, originalUrl, data, method, timeout, headers);
+        if (prepared == null) {
+            return;
+        }
+        if (saveFile != null && !DenizenCore.implementation.canWriteToFile(new File(saveFile))) {
+            Debug.echoError("Cannot write to that file path due to security settings in Denizen/config.yml.");
+            return;
+        }
+        send(prepared.request, saveFile, hideFailure, prepared.urlIsSecret).thenAccept(result -> DenizenCore.runOnMainThread(() -> {
+            result.saveTo(scriptEntry, saveFile == null);
+            scriptEntry.setFinished(true);
+        }));
+    }
+
+    public static void executeBatch(ScriptEntry scriptEntry, ListTag batch, ObjectTag defaultData, Method defaultMethod, boolean hideFailure, DurationTag defaultTimeout, MapTag defaultHeaders, int maxConcurrent) {
+        List<MapTag> maps = batch.filter(MapTag.class, scriptEntry);
+        if (maps.size() != batch.size()) {
+            Debug.echoError(scriptEntry, "Invalid batch: every entry must be a MapTag.");
+            return;
+        }
+        PreparedRequest[] requests = new PreparedRequest[maps.size()];
+        for (int i = 0; i < requests.length; i++) {
+            MapTag map = maps.get(i);
+            ObjectTag url = map.getObject("url");
+            if (url == null) {
+                Debug.echoError(scriptEntry, "Invalid batch: entry " + (i + 1) + " is missing a 'url' key.");
+                return;
+            }
+            ObjectTag data = map.getObject("data");
+            Method method = defaultMethod;
+            ObjectTag methodInput = map.getObject("method");
+            if (methodInput != null) {
+                method = methodInput.asElement().asEnum(Method.class);
+                if (method == null) {
+                    Debug.echoError(scriptEntry, "Invalid batch: entry " + (i + 1) + " has invalid method '" + methodInput + "'.");
+                    return;
+                }
+            }
+            DurationTag timeout = defaultTimeout;
+            ObjectTag timeoutInput = map.getObject("timeout");
+            if (timeoutInput != null) {
+                timeout = timeoutInput.asType(DurationTag.class, scriptEntry.context);
+                if (timeout == null) {
+                    Debug.echoError(scriptEntry, "Invalid batch: entry " + (i + 1) + " has invalid timeout '" + timeoutInput + "'.");
+                    return;
+                }
+            }
+            MapTag headers = defaultHeaders;
+            ObjectTag headersInput = map.getObject("headers");
+            if (headersInput != null) {
+                headers = headersInput.asType(MapTag.class, scriptEntry.context);
+                if (headers == null) {
+                    Debug.echoError(scriptEntry, "Invalid batch: entry " + (i + 1) + " has invalid headers '" + headersInput + "'.");
+                    return;
+                }
+            }
+            requests[i] = prepareRequest(scriptEntry.context, url, data == null ? defaultData : data, method, timeout, headers);
+            if (requests[i] == null) {
+                return;
+            }
+        }
+        long timeStart = CoreUtilities.monotonicMillis();
+        sendBatch(requests, hideFailure, Math.max(1, maxConcurrent)).thenAccept(results -> DenizenCore.runOnMainThread(() -> {
+            if (scriptEntry.saveName != null) {
+                boolean anyFailed = false;
+                ListTag resultList = new ListTag(results.length);
+                for (WebResult result : results) {
+                    anyFailed |= result.failed;
+                    resultList.addObject(result.toMap());
+                }
+                scriptEntry.saveObject("failed", new ElementTag(anyFailed));
+                scriptEntry.saveObject("results", resultList);
+                scriptEntry.saveObject("time_ran", new DurationTag((CoreUtilities.monotonicMillis() - timeStart) / 1000.0));
+            }
+            scriptEntry.setFinished(true);
+        }));
+    }
+
+    /**
+     * A request that has been validated and had its secrets resolved, ready to be sent.
+     */
+    public static class PreparedRequest {
+
+        public HttpRequest request;
+
+        public boolean urlIsSecret;
+    }
+
+    /**
+     * Validates the input for a single request and resolves any SecretTag input. Returns null (after showing an error) if the input is invalid.
+     */
+    public static PreparedRequest prepareRequest(TagContext context, ObjectTag originalUrl, ObjectTag data, Method method, DurationTag timeout, MapTag headers) {
         byte[] actualData = null;
         if (data != null) {
             if (data.shouldBeType(BinaryTag.class)) {
-                actualData = data.asType(BinaryTag.class, scriptEntry.context).data;
+                actualData = data.asType(BinaryTag.class, context).data;
             }
             else {
                 actualData = data.identify().getBytes(StandardCharsets.UTF_8);
             }
         }
         // Secrets processing
-        String urlText = originalUrl.asString();
+        String urlText = originalUrl.toString();
         final boolean urlIsSecret = originalUrl.canBeType(SecretTag.class);
         if (urlIsSecret) {
-            SecretTag secret = originalUrl.asType(SecretTag.class, scriptEntry.context);
+            SecretTag secret = originalUrl.asType(SecretTag.class, context);
             if (secret == null) {
-                Debug.echoError("Invalid URL SecretTag object '" + originalUrl.asString() + "' - secret not defined in 'secrets.secret'?");
-                return;
+                Debug.echoError("Invalid URL SecretTag object '" + originalUrl + "' - secret not defined in 'secrets.secret'?");
+                return null;
             }
             urlText = secret.getValue();
         }
@@ -156,202 +277,230 @@ public class WebGetCommand extends AbstractCommand implements Holdable {
             for (Map.Entry<StringHolder, ObjectTag> entry : headers.entrySet()) {
                 ObjectTag value = entry.getValue();
                 if (value.canBeType(SecretTag.class)) {
-                    SecretTag secret = value.asType(SecretTag.class, scriptEntry.context);
+                    SecretTag secret = value.asType(SecretTag.class, context);
                     if (secret == null) {
                         Debug.echoError("Invalid header SecretTag object '" + value + "' - secret not defined in 'secrets.secret'?");
-                        return;
+                        return null;
                     }
                     value = new ElementTag(secret.getValue(), true);
                 }
                 newHeaders.putObject(entry.getKey(), value);
             }
         }
-        final MapTag headersFinal = newHeaders;
-        final String urlFinal = urlText;
-        final byte[] finalData = actualData;
-        // Actual execution
-        if (!urlFinal.startsWith("http://") && !urlFinal.startsWith("https://")) {
-            Debug.echoError("Must have a valid (HTTP/HTTPS) URL! Attempted: " + originalUrl.asString()); // Note: use original url for error, in case of secret input
-            return;
+        if (!urlText.startsWith("http://") && !urlText.startsWith("https://")) {
+            Debug.echoError("Must have a valid (HTTP/HTTPS) URL! Attempted: " + originalUrl); // Note: use original url for error, in case of secret input
+            return null;
+        }
+        PreparedRequest prepared = new PreparedRequest();
+        prepared.urlIsSecret = urlIsSecret;
+        try {
+            prepared.request = buildRequest(actualData, method, urlText, timeout, newHeaders);
         }
-        Thread thr = new Thread(() -> webGet(scriptEntry, finalData, method, urlFinal, timeout, headersFinal, saveFile, hideFailure, urlIsSecret));
-        thr.start();
+        catch (IllegalArgumentException ex) {
+            if (urlIsSecret) {
+                Debug.echoError("Invalid URL (hidden due to secret URL presence).");
+            }
+            else {
+                Debug.echoError("Invalid URL '" + urlText + "': " + ex.getMessage());
+            }
+            return null;
+        }
+        return prepared;
     }
 
-    public static void writeToFile(InputStream in, String saveFile) throws Exception {
-        File file = new File(saveFile);
-        if (!DenizenCore.implementation.canWriteToFile(file)) {
-            Debug.echoError("Cannot write to that file path due to security settings in Denizen/config.yml.");
-            return;
+    /**
+     * The result of a single web request. 'status' is -1 if the connection failed entirely.
+     */
+    public static class WebResult {
+
+        public int status = -1;
+
+        public boolean failed = true;
+
+        public byte[] body;
+
+        public MapTag headers;
+
+        public long timeRan;
+
+        public void saveTo(ScriptEntry scriptEntry, boolean includeBody) {
+            if (scriptEntry.saveName == null) {
+                return; // Nothing can read the results, so don't bother building them
+            }
+            scriptEntry.saveObject("failed", new ElementTag(failed));
+            if (status == -1) {
+                return;
+            }
+            scriptEntry.saveObject("status", new ElementTag(status));
+            if (includeBody) {
+                if (body != null) {
+                    scriptEntry.saveObject("result", new ElementTag(new String(body, StandardCharsets.UTF_8)));
+                    scriptEntry.saveObject("result_binary", new BinaryTag(body));
+                }
+                scriptEntry.saveObject("result_headers", headers);
+            }
+            scriptEntry.saveObject("time_ran", new DurationTag(timeRan / 1000.0));
         }
-        FileOutputStream fout = new FileOutputStream(file);
-        byte[] buffer = new byte[8 * 1024];
-        int len;
-        while ((len = in.read(buffer)) > 0) {
-            fout.write(buffer, 0, len);
+
+        public MapTag toMap() {
+            MapTag map = new MapTag();
+            map.putObject("failed", new ElementTag(failed));
+            if (status != -1) {
+                map.putObject("status", new ElementTag(status));
+                if (body != null) {
+                    map.putObject("result", new ElementTag(new String(body, StandardCharsets.UTF_8)));
+                    map.putObject("result_binary", new BinaryTag(body));
+                }
+                map.putObject("result_headers", headers);
+                map.putObject("time_ran", new DurationTag(timeRan / 1000.0));
+            }
+            return map;
         }
-        fout.flush();
-        fout.close();
     }
 
-    public static boolean patchAlreadyPatched = false;
+    public static ThreadPoolExecutor webgetExecutor;
+
+    public static HttpClient httpClient;
 
     /**
-     * This fixes the methods field in HttpURLConnection class to support the PATCH method.
-     * I named this fix method this way because the name deserves to be as stupid as the concept.
+     * Returns the shared HTTP client, creating it if needed.
+     * The client keeps connections alive (and multiplexes HTTP/2 connections) between requests, and runs all of its work on a single bounded pool of daemon threads.
      */
-    public static void patchPatchMethodMethodsField() {
-        if (patchAlreadyPatched) {
-            return;
+    public static synchronized HttpClient getHttpClient() {
+        if (httpClient == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            int threads = Math.max(1, CoreConfiguration.webgetThreads);
+            webgetExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), (runnable) -> {
+                Thread thread = new Thread(runnable, "Denizen WebGet Thread " + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            webgetExecutor.allowCoreThreadTimeOut(true);
+            httpClient = HttpClient.newBuilder().executor(webgetExecutor).version(HttpClient.Version.HTTP_2).followRedirects(HttpClient.Redirect.NORMAL).build();
         }
-        patchAlreadyPatched = true;
+        return httpClient;
+    }
+
+    public static final String URI_SAFE_CHARS = "-._~:/?#@!$&'()*+,;=%";
+
+    /**
+     * Parses a URL to a URI, percent-encoding any characters that a strict URI parse would reject (such as spaces or '|').
+     */
+    public static URI parseUri(String urlText) {
         try {
-            ReflectionHelper.giveReflectiveAccess(HttpURLConnection.class, WebGetCommand.class);
-            String[] methods = ReflectionHelper.getFieldValue(HttpURLConnection.class, "methods", null);
-            String[] outMethods = new String[methods.length + 1];
-            System.arraycopy(methods, 0, outMethods, 0, methods.length);
-            outMethods[methods.length] = "PATCH";
-            ReflectionHelper.getFinalSetter(HttpURLConnection.class, "methods").invoke(outMethods);
+            return new URI(urlText);
         }
-        catch (Throwable ex) {
-            Debug.echoError(ex);
+        catch (URISyntaxException ex) {
+            StringBuilder output = new StringBuilder(urlText.length() + 16);
+            for (byte b : urlText.getBytes(StandardCharsets.UTF_8)) {
+                char c = (char) (b & 0xFF);
+                if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || URI_SAFE_CHARS.indexOf(c) != -1) {
+                    output.append(c);
+                }
+                else {
+                    output.append('%').append(Character.toUpperCase(Character.forDigit((c >> 4) & 0xF, 16))).append(Character.toUpperCase(Character.forDigit(c & 0xF, 16)));
+                }
+            }
+            return URI.create(output.toString());
         }
     }
 
-    public static void webGet(final ScriptEntry scriptEntry, final byte[] data, Method method, String urlText, DurationTag timeout, MapTag headers, String saveFile, boolean hideFailure, boolean urlIsSecret) {
-        HttpURLConnection uc = null;
-        try {
-            long timeStart = CoreUtilities.monotonicMillis();
-            URL url = new URL(urlText.replace(" ", "%20"));
-            uc = (HttpURLConnection) url.openConnection();
-            uc.setDoInput(true);
-            uc.setDoOutput(true);
-            if (method != null) {
-                if (method == Method.PATCH) {
-                    patchPatchMethodMethodsField();
+    public static HttpRequest buildRequest(byte[] data, Method method, String urlText, DurationTag timeout, MapTag headers) {
+        URI uri = parseUri(urlText);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri);
+        if (uri.getScheme().equalsIgnoreCase("http")) {
+            builder.version(HttpClient.Version.HTTP_1_1); // HTTP/2 over plain HTTP means an 'h2c' upgrade attempt on every request, which many servers mishandle
+        }
+        String methodName = method != null ? method.name() : (data != null ? "POST" : "GET");
+        builder.method(methodName, data == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(data));
+        if (timeout.getMillis() > 0) {
+            builder.timeout(Duration.ofMillis(timeout.getMillis()));
+        }
+        if (headers != null) {
+            for (Map.Entry<StringHolder, ObjectTag> pair : headers.entrySet()) {
+                try {
+                    builder.header(pair.getKey().str, pair.getValue().toString());
                 }
-                uc.setRequestMethod(method.name());
-            }
-            else if (data != null) {
-                uc.setRequestMethod("POST");
-            }
-            if (headers != null) {
-                for (Map.Entry<StringHolder, ObjectTag> pair : headers.entrySet()) {
-                    uc.setRequestProperty(pair.getKey().str, pair.getValue().toString());
+                catch (IllegalArgumentException ex) {
+                    // Restricted headers (like 'Content-Length' or 'Host') are managed by the client itself, so just skip them
                 }
             }
-            uc.setConnectTimeout((int) timeout.getMillis());
-            uc.connect();
-            if (data != null) {
-                uc.getOutputStream().write(data);
+        }
+        return builder.build();
+    }
+
+    public static void echoFailure(Throwable ex, boolean urlIsSecret) {
+        if (urlIsSecret) {
+            Debug.echoError("WebGet encountered an exception of type '" + ex.getClass().getCanonicalName() + "' but hid the exception text due to secret URL presence.");
+        }
+        else {
+            Debug.echoError(ex);
+        }
+    }
+
+    /**
+     * Sends a request on the shared client. The returned future always completes normally (on a webget thread), with failures recorded in the result.
+     * If 'saveFile' is non-null, the body is written directly to that file (which must already be verified as writable) instead of being kept in memory.
+     */
+    public static CompletableFuture<WebResult> send(HttpRequest request, String saveFile, boolean hideFailure, boolean urlIsSecret) {
+        long timeStart = CoreUtilities.monotonicMillis();
+        HttpResponse.BodyHandler<?> handler = saveFile == null ? HttpResponse.BodyHandlers.ofByteArray() : HttpResponse.BodyHandlers.ofFile(new File(saveFile).toPath());
+        return getHttpClient().sendAsync(request, handler).handle((response, error) -> {
+            WebResult result = new WebResult();
+            result.timeRan = CoreUtilities.monotonicMillis() - timeStart;
+            if (error != null) {
+                if (!hideFailure) {
+                    echoFailure(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error, urlIsSecret);
+                }
+                return result;
             }
-            final int status = uc.getResponseCode();
-            byte[] result = null;
-            if (saveFile != null) {
-                writeToFile(uc.getInputStream(), saveFile);
+            result.status = response.statusCode();
+            result.failed = result.status < 200 || result.status >= 400;
+            if (result.failed && !hideFailure) {
+                Debug.echoError("WebGet for '" + (urlIsSecret ? "(secret)" : request.uri().toString()) + "' received HTTP status " + result.status + ".");
             }
-            else {
-                InputStream stream = uc.getInputStream();
-                ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
-                byte[] buffer = new byte[1024];
-                int len;
-                while ((len = stream.read(buffer, 0, 1024)) != -1) {
-                    bytesOut.write(buffer, 0, len);
-                }
-                result = bytesOut.toByteArray();
-                bytesOut.close();
-                stream.close();
+            if (saveFile == null) {
+                result.body = (byte[]) response.body();
             }
-            final byte[] outResult = result;
-            MapTag resultHeaders = new MapTag();
-            for (Map.Entry<String, List<String>> header : uc.getHeaderFields().entrySet()) {
-                String key = header.getKey();
-                if (key == null) {
-                    key = "null";
-                }
-                resultHeaders.putObject(key, new ListTag(header.getValue(), true));
+            result.headers = new MapTag();
+            for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+                result.headers.putObject(header.getKey(), new ListTag(header.getValue(), true));
             }
-            final long timeDone = CoreUtilities.monotonicMillis();
-            DenizenCore.schedule(new Schedulable() {
-                @Override
-                public boolean tick(float seconds) {
-                    scriptEntry.saveObject("status", new ElementTag(status));
-                    scriptEntry.saveObject("failed", new ElementTag(status >= 200 && status < 400 ? "false" : "true"));
-                    if (saveFile == null) {
-                        if (outResult != null) {
-                            scriptEntry.saveObject("result", new ElementTag(new String(outResult, StandardCharsets.UTF_8)));
-                            scriptEntry.saveObject("result_binary", new BinaryTag(outResult));
-                        }
-                        scriptEntry.saveObject("result_headers", resultHeaders);
-                    }
-                    scriptEntry.saveObject("time_ran", new DurationTag((timeDone - timeStart) / 1000.0));
-                    scriptEntry.setFinished(true);
-                    return false;
-                }
-            });
+            return result;
+        });
+    }
+
+    /**
+     * Sends a set of requests, with at most 'maxConcurrent' in flight at a time.
+     * The returned future completes (on a webget thread) once every request is done, with results in the same order as the input.
+     */
+    public static CompletableFuture<WebResult[]> sendBatch(PreparedRequest[] requests, boolean hideFailure, int maxConcurrent) {
+        WebResult[] results = new WebResult[requests.length];
+        CompletableFuture<WebResult[]> done = new CompletableFuture<>();
+        if (requests.length == 0) {
+            done.complete(results);
+            return done;
         }
-        catch (Exception e) {
-            if (!hideFailure || uc == null) {
-                if (urlIsSecret) {
-                    Debug.echoError("WebGet encountered an exception of type '" + e.getClass().getCanonicalName() + "' but hid the exception text due to secret URL presence.");
-                }
-                else {
-                    Debug.echoError(e);
-                }
+        AtomicInteger nextIndex = new AtomicInteger(), remaining = new AtomicInteger(requests.length);
+        Runnable[] startNext = new Runnable[1];
+        startNext[0] = () -> {
+            int index = nextIndex.getAndIncrement();
+            if (index >= requests.length) {
+                return;
             }
-            int tempStatus = -1;
-            byte[] result = null;
-            if (uc != null) {
-                try {
-                    tempStatus = uc.getResponseCode();
-                    InputStream errorStream = uc.getErrorStream();
-                    if (errorStream != null) {
-                        if (saveFile != null) {
-                            writeToFile(errorStream, saveFile);
-                        }
-                        else {
-                            ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
-                            byte[] buffer = new byte[1024];
-                            int len;
-                            while ((len = errorStream.read(buffer, 0, 1024)) != -1) {
-                                bytesOut.write(buffer, 0, len);
-                            }
-                            result = bytesOut.toByteArray();
-                            bytesOut.close();
-                            errorStream.close();
-                        }
-                    }
-                }
-                catch (Exception e2) {
-                    if (!hideFailure) {
-                        if (urlIsSecret) {
-                            Debug.echoError("WebGet encountered an exception of type '" + e2.getClass().getCanonicalName() + "' but hid the exception text due to secret URL presence.");
-                        }
-                        else {
-                            Debug.echoError(e2);
-                        }
-                    }
+            send(requests[index].request, null, hideFailure, requests[index].urlIsSecret).thenAccept(result -> {
+                results[index] = result;
+                if (remaining.decrementAndGet() == 0) {
+                    done.complete(results);
                 }
-            }
-            final byte[] outResult = result;
-            final int status = tempStatus;
-            DenizenCore.schedule(new Schedulable() {
-                @Override
-                public boolean tick(float seconds) {
-                    scriptEntry.saveObject("failed", new ElementTag("true"));
-                    if (status != -1) {
-                        scriptEntry.saveObject("status", new ElementTag(status));
-                        if (saveFile == null) {
-                            if (outResult != null) {
-                                scriptEntry.saveObject("result", new ElementTag(new String(outResult, StandardCharsets.UTF_8)));
-                                scriptEntry.saveObject("result_binary", new BinaryTag(outResult));
-                            }
-                        }
-                    }
-                    scriptEntry.setFinished(true);
-                    return false;
+                else {
+                    startNext[0].run();
                 }
             });
+        };
+        for (int i = 0; i < Math.min(maxConcurrent, requests.length); i++) {
+            startNext[0].run();
         }
+        return done;
     }
 }
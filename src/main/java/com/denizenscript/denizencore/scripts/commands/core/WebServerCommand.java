@@ -2,8 +2,10 @@ package com.denizenscript.denizencore.scripts.commands.core;
 
 import com.denizenscript.denizencore.DenizenCore;
 import com.denizenscript.denizencore.events.core.WebserverWebRequestScriptEvent;
+import com.denizenscript.denizencore.objects.core.ListTag;
 import com.denizenscript.denizencore.scripts.ScriptEntry;
 import com.denizenscript.denizencore.scripts.commands.AbstractCommand;
+import com.denizenscript.denizencore.scripts.commands.generator.ArgDefaultNull;
 import com.denizenscript.denizencore.scripts.commands.generator.ArgDefaultText;
 import com.denizenscript.denizencore.scripts.commands.generator.ArgName;
 import com.denizenscript.denizencore.scripts.commands.generator.ArgPrefixed;
@@ -12,25 +14,36 @@ import com.denizenscript.denizencore.utilities.debugging.Debug;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class WebServerCommand extends AbstractCommand {
 
     public WebServerCommand() {
         setName("webserver");
-        setSyntax("webserver [start/stop] (port:<#>) (ignore_errors)");
-        setRequiredArguments(1, 3);
+        setSyntax("webserver [start/stop] (port:<#>) (ignore_errors) (static_paths:<list>)");
+        setRequiredArguments(1, 4);
         isProcedural = false;
         autoCompile();
     }
 
     // <--[command]
     // @Name WebServer
-    // @Syntax webserver [start/stop] (port:<#>) (ignore_errors)
+    // @Syntax webserver [start/stop] (port:<#>) (ignore_errors) (static_paths:<list>)
     // @Required 1
-    // @Maximum 3
+    // @Maximum 4
     // @Short Creates a local HTTP web-server within your minecraft server.
     // @Group core
     //
@@ -56,6 +69,14 @@ public class WebServerCommand extends AbstractCommand {
     // Most webserver processing is done in the event, and thus is synchronous with the minecraft thread, and thus may induce lag if not done with care.
     // Note per the event's meta, "file:" is handled async, and "cached_file:" only runs sync once per file.
     //
+    // Optionally specify "static_paths:" as a list of path prefixes (like "/assets/" or "/favicon.ico") to be served directly from the web root folder configured in Denizen/config.yml.
+    // GET and HEAD requests under those paths for files that exist are served entirely on the webserver's own worker threads, without firing the event or touching the main thread.
+    // These files go through the same RAM cache as the event's "cached_file:" determination.
+    // A directory request will serve the "index.html" file within it, if any.
+    // Requests under those paths for files that don't exist still fire the event as normal.
+    //
+    // Requests are handled on a pool of worker threads per webserver (size set by the Denizen config), and requests that need the event are passed to the main thread together once per tick.
+    //
     // This command must be enabled in the Denizen/config.yml before it can be used.
     //
     // @Tags
@@ -79,15 +100,140 @@ public class WebServerCommand extends AbstractCommand {
 
         public boolean ignoreErrors;
 
+        public List<String> staticPaths;
+
+        public ThreadPoolExecutor workers;
+
+        public final ConcurrentLinkedQueue<HttpExchange> pendingRequests = new ConcurrentLinkedQueue<>();
+
+        public final AtomicBoolean firePendingScheduled = new AtomicBoolean(false);
+
+        public volatile boolean stopped;
+
         public void handleRequest(HttpExchange exchange) {
-            DenizenCore.runOnMainThread(() -> WebserverWebRequestScriptEvent.fire(this, exchange));
+            if (stopped) {
+                exchange.close();
+                return;
+            }
+            if (staticPaths != null && tryServeStatic(exchange)) {
+                return;
+            }
+            pendingRequests.add(exchange);
+            if (firePendingScheduled.compareAndSet(false, true)) {
+                DenizenCore.runOnMainThread(this::firePending);
+            }
+        }
+
+        /**
+         * Fires the event for every request that has come in since the last call, on the main thread.
+         */
+        public void firePending() {
+            firePendingScheduled.set(false);
+            HttpExchange exchange;
+            while ((exchange = pendingRequests.poll()) != null) {
+                if (stopped) {
+                    exchange.close();
+                }
+                else {
+                    WebserverWebRequestScriptEvent.fire(this, exchange);
+                }
+            }
         }
 
+        /**
+         * Serves the request directly from the web root if it's a GET/HEAD for an existing file under one of the static paths. Returns false if the event should handle it instead.
+         */
+        public boolean tryServeStatic(HttpExchange exchange) {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                return false;
+            }
+            String path = exchange.getRequestURI().normalize().getPath();
+            if (path == null) {
+                return false;
+            }
+            boolean matched = false;
+            for (String prefix : staticPaths) {
+                if (path.startsWith(prefix)) {
+                    matched = true;
+                    break;
+                }
+            }
+            if (!matched) {
+                return false;
+            }
+            if (path.contains("..")) {
+                try {
+                    exchange.sendResponseHeaders(400, -1);
+                }
+                catch (IOException ex) {
+                    // Ignore, closing below
+                }
+                exchange.close();
+                return true;
+            }
+            File root = new File(DenizenCore.implementation.getDataFolder(), CoreConfiguration.webserverRoot);
+            File file = new File(root, path);
+            if (file.isDirectory()) {
+                file = new File(file, "index.html");
+            }
+            if (!file.isFile()) {
+                return false;
+            }
+            try {
+                if (!file.getCanonicalPath().startsWith(root.getCanonicalPath() + File.separator) || !DenizenCore.implementation.canReadFile(file)) {
+                    return false;
+                }
+                String contentType = URLConnection.getFileNameMap().getContentTypeFor(file.getName());
+                if (contentType != null) {
+                    exchange.getResponseHeaders().set("Content-Type", contentType);
+                }
+                WebserverWebRequestScriptEvent.CachedFile cached = WebserverWebRequestScriptEvent.getValidCachedFile(file);
+                if (cached == null) {
+                    cached = WebserverWebRequestScriptEvent.loadCachedFile(file);
+                }
+                if (cached != null) {
+                    WebserverWebRequestScriptEvent.sendCachedFile(exchange, 200, cached);
+                }
+                else {
+                    WebserverWebRequestScriptEvent.sendFile(exchange, 200, file);
+                }
+                exchange.close();
+            }
+            catch (Throwable ex) {
+                if (!ignoreErrors || !(ex instanceof IOException)) {
+                    Debug.echoError(ex);
+                }
+                exchange.close();
+            }
+            return true;
+        }
+
+        /**
+         * Runs the task on the worker pool, or directly if the webserver has already been stopped (in which case any request it handles is just closed).
+         */
         public void executor(Runnable command) {
-            DenizenCore.runAsync(command);
+            if (!stopped) {
+                try {
+                    workers.execute(command);
+                    return;
+                }
+                catch (RejectedExecutionException ex) {
+                    // Stopped while queuing, run below
+                }
+            }
+            command.run();
         }
 
         public void start() throws IOException {
+            AtomicInteger threadCount = new AtomicInteger();
+            int threads = Math.max(1, CoreConfiguration.webserverThreads);
+            workers = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), (runnable) -> {
+                Thread thread = new Thread(runnable, "Denizen Webserver " + port + " Thread " + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            workers.allowCoreThreadTimeOut(true);
             server = HttpServer.create(new InetSocketAddress(port), 0);
             server.createContext("/", this::handleRequest);
             server.setExecutor(this::executor);
@@ -95,7 +241,9 @@ public class WebServerCommand extends AbstractCommand {
         }
 
         public void stop() {
+            stopped = true;
             server.stop(0);
+            workers.shutdown();
         }
     }
 
@@ -106,7 +254,8 @@ public class WebServerCommand extends AbstractCommand {
     public static void autoExecute(ScriptEntry scriptEntry,
                                    @ArgPrefixed @ArgName("port") @ArgDefaultText("8080") int portNum,
                                    @ArgName("mode") Mode mode,
-                                   @ArgName("ignore_errors") boolean ignoreErrors) {
+                                   @ArgName("ignore_errors") boolean ignoreErrors,
+                                   @ArgPrefixed @ArgName("static_paths") @ArgDefaultNull ListTag staticPaths) {
         if (!CoreConfiguration.allowWebserver) {
             Debug.echoError("WebServer command disabled in config.yml!");
             return;
@@ -121,6 +270,7 @@ public class WebServerCommand extends AbstractCommand {
                 instance = new WebserverInstance();
                 instance.port = portNum;
                 instance.ignoreErrors = ignoreErrors;
+                instance.staticPaths = staticPaths == null ? null : new ArrayList<>(staticPaths);
                 try {
                     instance.start();
                     webservers.put(portNum, instance);
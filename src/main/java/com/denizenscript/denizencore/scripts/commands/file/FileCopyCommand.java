@@ -5,21 +5,21 @@ import com.denizenscript.denizencore.scripts.commands.Holdable;
 import com.denizenscript.denizencore.scripts.commands.generator.ArgName;
 import com.denizenscript.denizencore.scripts.commands.generator.ArgPrefixed;
 import com.denizenscript.denizencore.utilities.CoreConfiguration;
-import com.denizenscript.denizencore.utilities.CoreUtilities;
+import com.denizenscript.denizencore.utilities.FileCopier;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
 import com.denizenscript.denizencore.DenizenCore;
 import com.denizenscript.denizencore.objects.core.ElementTag;
 import com.denizenscript.denizencore.scripts.ScriptEntry;
 
 import java.io.File;
-import java.nio.file.Files;
+import java.nio.file.Path;
 
 public class FileCopyCommand extends AbstractCommand implements Holdable {
 
     public FileCopyCommand() {
         setName("filecopy");
-        setSyntax("filecopy [origin:<origin>] [destination:<destination>] (overwrite)");
-        setRequiredArguments(2, 3);
+        setSyntax("filecopy [origin:<origin>] [destination:<destination>] (overwrite) (incremental)");
+        setRequiredArguments(2, 4);
         isProcedural = false;
         autoCompile();
         addRemappedPrefixes("destination", "d");
@@ -28,9 +28,9 @@ public class FileCopyCommand extends AbstractCommand implements Holdable {
 
     // <--[command]
     // @Name FileCopy
-    // @Syntax filecopy [origin:<origin>] [destination:<destination>] (overwrite)
+    // @Syntax filecopy [origin:<origin>] [destination:<destination>] (overwrite) (incremental)
     // @Required 2
-    // @Maximum 3
+    // @Maximum 4
     // @Short Copies a file from one location to another.
     // @Group file
     //
@@ -39,7 +39,15 @@ public class FileCopyCommand extends AbstractCommand implements Holdable {
     //
     // The starting directory is server/plugins/Denizen.
     //
-    // May overwrite existing copies of files.
+    // Files that already exist in the destination are left alone unless "overwrite" or "incremental" is specified.
+    // If any are left alone this way, the copy is not considered a success.
+    // Specify "overwrite" to replace any existing files.
+    //
+    // Specify "incremental" to only copy files that are new or have changed, judged by file size and last-modified time.
+    // Files that appear unchanged are skipped, and any others are replaced. This is useful for repeatedly syncing a folder to a backup.
+    //
+    // Files within a directory are copied in parallel, and large files are copied directly by the operating system where possible.
+    // While a ~waited copy is running, progress is shown in debug output once per second.
     //
     // Note that in most cases this command should be ~waited for (like "- ~filecopy ..."). Refer to <@link language ~waitable>.
     //
@@ -47,18 +55,27 @@ public class FileCopyCommand extends AbstractCommand implements Holdable {
     //
     // @Tags
     // <entry[saveName].success> returns whether the copy succeeded (if not, either an error or occurred, or there is an existing file in the destination.)
+    // <entry[saveName].files_copied> returns the number of files copied.
+    // <entry[saveName].files_skipped> returns the number of files skipped (because they already existed, were unchanged, or were blocked by security settings).
+    // <entry[saveName].bytes_copied> returns the total number of bytes copied.
     //
     // @Usage
     // Use to copy a custom YAML data file to a backup folder, overwriting any old backup of it that exists.
     // - ~filecopy o:data/custom.yml d:data/backup.yml overwrite save:copy
     // - narrate "Copy success<&co> <entry[copy].success>"
     //
+    // @Usage
+    // Use to sync a data folder to a backup folder, only copying files that changed since the last sync.
+    // - ~filecopy o:data/players/ d:backup/players/ incremental save:sync
+    // - narrate "Copied <entry[sync].files_copied> files (<entry[sync].bytes_copied> bytes), <entry[sync].files_skipped> unchanged."
+    //
     // -->
 
     public static void autoExecute(final ScriptEntry scriptEntry,
                                    @ArgPrefixed @ArgName("origin") final String origin,
                                    @ArgPrefixed @ArgName("destination") final String destination,
-                                   @ArgName("overwrite") final boolean overwrite) {
+                                   @ArgName("overwrite") final boolean overwrite,
+                                   @ArgName("incremental") final boolean incremental) {
         if (!CoreConfiguration.allowFileCopy) {
             Debug.echoError(scriptEntry, "File copy disabled by server administrator (refer to command documentation).");
             scriptEntry.saveObject("success", new ElementTag("false"));
@@ -87,7 +104,7 @@ public class FileCopyCommand extends AbstractCommand implements Holdable {
             scriptEntry.setFinished(true);
             return;
         }
-        if (dexists && !disdir && !overwrite) {
+        if (dexists && !disdir && !overwrite && !incremental) {
             Debug.echoDebug(scriptEntry, "File copy ignored, destination file already exists!");
             scriptEntry.saveObject("success", new ElementTag("false"));
             scriptEntry.setFinished(true);
@@ -95,22 +112,24 @@ public class FileCopyCommand extends AbstractCommand implements Holdable {
         }
         Runnable runme = () -> {
             try {
-                if (dexists && !disdir) {
-                    d.delete();
-                }
                 if (disdir && !dexists) {
                     d.mkdirs();
                 }
                 else if (!dexists && !d.getParentFile().exists()) {
                     d.getParentFile().mkdirs();
                 }
-                if (o.isDirectory()) {
-                    CoreUtilities.copyDirectory(o, d, null);
-                }
-                else {
-                    Files.copy(o.toPath(), (disdir ? d.toPath().resolve(o.toPath().getFileName()) : d.toPath()));
+                Path target = !o.isDirectory() && disdir ? d.toPath().resolve(o.toPath().getFileName()) : d.toPath();
+                FileCopier copier = new FileCopier(o.toPath(), target);
+                copier.overwrite = overwrite;
+                copier.incremental = incremental;
+                boolean success = copier.run(() -> DenizenCore.runOnMainThread(() -> Debug.echoDebug(scriptEntry, copier.getProgressText())), 1000);
+                if (!overwrite && !incremental && copier.filesSkipped.get() > 0) {
+                    success = false;
                 }
-                scriptEntry.saveObject("success", new ElementTag("true"));
+                scriptEntry.saveObject("files_copied", new ElementTag(copier.filesCopied.get()));
+                scriptEntry.saveObject("files_skipped", new ElementTag(copier.filesSkipped.get()));
+                scriptEntry.saveObject("bytes_copied", new ElementTag(copier.bytesCopied.get()));
+                scriptEntry.saveObject("success", new ElementTag(success));
                 scriptEntry.setFinished(true);
             }
             catch (Exception e) {
@@ -2,32 +2,41 @@ package com.denizenscript.denizencore.scripts.commands.file;
 
 import com.denizenscript.denizencore.DenizenCore;
 import com.denizenscript.denizencore.objects.core.BinaryTag;
+import com.denizenscript.denizencore.objects.core.ElementTag;
+import com.denizenscript.denizencore.objects.core.ListTag;
 import com.denizenscript.denizencore.scripts.ScriptEntry;
 import com.denizenscript.denizencore.scripts.commands.AbstractCommand;
 import com.denizenscript.denizencore.scripts.commands.Holdable;
+import com.denizenscript.denizencore.scripts.commands.generator.ArgDefaultText;
 import com.denizenscript.denizencore.scripts.commands.generator.ArgName;
 import com.denizenscript.denizencore.scripts.commands.generator.ArgPrefixed;
 import com.denizenscript.denizencore.utilities.CoreConfiguration;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 public class FileReadCommand extends AbstractCommand implements Holdable {
 
     public FileReadCommand() {
         setName("fileread");
-        setSyntax("fileread [path:<path>]");
-        setRequiredArguments(1, 1);
+        setSyntax("fileread [path:<path>] (offset:<#>) (length:<#>/lines:<#>)");
+        setRequiredArguments(1, 3);
         isProcedural = false;
         autoCompile();
     }
 
     // <--[command]
     // @Name FileRead
-    // @Syntax fileread [path:<path>]
+    // @Syntax fileread [path:<path>] (offset:<#>) (length:<#>/lines:<#>)
     // @Required 1
-    // @Maximum 1
+    // @Maximum 3
     // @Short Reads the file at the given path.
     // @Group file
     //
@@ -36,32 +45,88 @@ public class FileReadCommand extends AbstractCommand implements Holdable {
     //
     // The starting directory is server/plugins/Denizen.
     //
+    // Optionally specify "offset:" to start reading at a byte position other than the start of the file,
+    // and "length:" to read at most that many bytes rather than the whole rest of the file.
+    // Or, specify "lines:" to read up to that many lines of text (UTF-8) instead of raw data. The line endings are not included.
+    // Together with <entry[saveName].next_offset> and <entry[saveName].has_more>, this allows processing a large file one chunk at a time,
+    // without ever loading the entire file at once.
+    //
     // Note that in most cases this command should be ~waited for (like "- ~fileread ..."). Refer to <@link language ~waitable>.
     //
     // This command must be enabled by setting Denizen config option "Commands.File.Allow read" to true.
     //
     // @Tags
-    // <entry[saveName].data> returns a BinaryTag of the raw file content.
+    // <entry[saveName].data> returns a BinaryTag of the raw file content (not available when reading lines).
+    // <entry[saveName].lines> returns a ListTag of the lines read, when reading lines.
+    // <entry[saveName].size> returns the total size of the file in bytes.
+    // <entry[saveName].next_offset> returns the offset just past the end of the data or last line read, to use as the offset to read the next chunk.
+    // <entry[saveName].has_more> returns whether there is more data in the file after what was read.
     //
     // @Usage
     // Use to read 'myfile' and narrate the text content.
     // - ~fileread path:data/myfile.dat save:read
     // - narrate "Read data: <entry[read].data.utf8_decode>"
     //
+    // @Usage
+    // Use to read the first 16 bytes of 'myfile'.
+    // - ~fileread path:data/myfile.dat length:16 save:header
+    // - narrate "Header: <entry[header].data.to_hex>"
+    //
+    // @Usage
+    // Use to process a large log file 1000 lines at a time.
+    // - define offset 0
+    // - while true:
+    //     - ~fileread path:data/big.log offset:<[offset]> lines:1000 save:chunk
+    //     - foreach <entry[chunk].lines> as:line:
+    //         - narrate <[line]>
+    //     - if !<entry[chunk].has_more>:
+    //         - while stop
+    //     - define offset <entry[chunk].next_offset>
+    //
     // -->
 
     public static void autoExecute(final ScriptEntry scriptEntry,
-                                   @ArgPrefixed @ArgName("path") final String path) {
+                                   @ArgPrefixed @ArgName("path") final String path,
+                                   @ArgPrefixed @ArgName("offset") @ArgDefaultText("0") final long offset,
+                                   @ArgPrefixed @ArgName("length") @ArgDefaultText("-1") final long length,
+                                   @ArgPrefixed @ArgName("lines") @ArgDefaultText("-1") final int lines) {
+        if (offset < 0) {
+            Debug.echoError(scriptEntry, "Offset cannot be negative.");
+            scriptEntry.setFinished(true);
+            return;
+        }
         File file = getFileIfSafe(path, scriptEntry);
         if (file == null) {
             return;
         }
         Runnable runme = () -> {
-            try {
-                FileInputStream stream = new FileInputStream(file);
-                byte[] data = stream.readAllBytes();
-                stream.close();
-                scriptEntry.saveObject("data", new BinaryTag(data));
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                long size = channel.size();
+                long start = Math.min(offset, size);
+                long end;
+                if (lines >= 0) {
+                    ListTag result = new ListTag();
+                    end = readLines(channel, start, lines, result);
+                    scriptEntry.saveObject("lines", result);
+                }
+                else {
+                    end = length < 0 ? size : Math.min(size, start + length);
+                    if (end - start > Integer.MAX_VALUE - 8) {
+                        throw new IOException("Cannot read more than 2 GiB at once, specify a smaller length.");
+                    }
+                    byte[] data = new byte[(int) (end - start)];
+                    ByteBuffer buffer = ByteBuffer.wrap(data);
+                    while (buffer.hasRemaining()) {
+                        if (channel.read(buffer, start + buffer.position()) < 0) {
+                            break;
+                        }
+                    }
+                    scriptEntry.saveObject("data", new BinaryTag(buffer.position() == data.length ? data : Arrays.copyOf(data, buffer.position())));
+                    end = start + buffer.position();
+                }
+                scriptEntry.saveObject("size", new ElementTag(size));
+                scriptEntry.saveObject("next_offset", new ElementTag(end));
+                scriptEntry.saveObject("has_more", new ElementTag(end < size));
                 scriptEntry.setFinished(true);
             }
             catch (Exception e) {
@@ -77,6 +142,49 @@ public class FileReadCommand extends AbstractCommand implements Holdable {
         }
     }
 
+    /**
+     * Reads up to 'maxLines' lines of UTF-8 text starting at the given byte position, and returns the position just past the last line read.
+     * A final line with no line ending is only included when the end of the file is reached.
+     */
+    public static long readLines(FileChannel channel, long start, int maxLines, ListTag output) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        long position = start;
+        long consumed = start;
+        while (output.size() < maxLines) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                if (line.size() > 0) {
+                    output.addObject(new ElementTag(decodeLine(line), true));
+                    consumed = position;
+                }
+                break;
+            }
+            byte[] bytes = buffer.array();
+            int lineStart = 0;
+            for (int i = 0; i < read && output.size() < maxLines; i++) {
+                if (bytes[i] == '\n') {
+                    line.write(bytes, lineStart, i - lineStart);
+                    output.addObject(new ElementTag(decodeLine(line), true));
+                    line.reset();
+                    lineStart = i + 1;
+                    consumed = position + lineStart;
+                }
+            }
+            if (output.size() < maxLines) {
+                line.write(bytes, lineStart, read - lineStart);
+            }
+            position += read;
+        }
+        return consumed;
+    }
+
+    public static String decodeLine(ByteArrayOutputStream line) {
+        String text = line.toString(StandardCharsets.UTF_8);
+        return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+    }
+
     public static File getFileIfSafe(String path, ScriptEntry scriptEntry) {
         if (!CoreConfiguration.allowFileRead) {
             Debug.echoError(scriptEntry, "FileRead disabled in Denizen/config.yml (refer to command documentation).");
@@ -5,6 +5,7 @@ import com.denizenscript.denizencore.objects.core.BinaryTag;
 import com.denizenscript.denizencore.scripts.ScriptEntry;
 import com.denizenscript.denizencore.scripts.commands.AbstractCommand;
 import com.denizenscript.denizencore.scripts.commands.Holdable;
+import com.denizenscript.denizencore.scripts.commands.generator.ArgDefaultText;
 import com.denizenscript.denizencore.scripts.commands.generator.ArgName;
 import com.denizenscript.denizencore.scripts.commands.generator.ArgPrefixed;
 import com.denizenscript.denizencore.utilities.CoreConfiguration;
@@ -12,29 +13,34 @@ import com.denizenscript.denizencore.utilities.debugging.Debug;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 public class FileWriteCommand extends AbstractCommand implements Holdable {
 
     public FileWriteCommand() {
         setName("filewrite");
-        setSyntax("filewrite [path:<path>] [data:<binary>]");
-        setRequiredArguments(2, 2);
+        setSyntax("filewrite [path:<path>] [data:<binary>] (append/offset:<#>)");
+        setRequiredArguments(2, 3);
         isProcedural = false;
         autoCompile();
     }
 
     // <--[command]
     // @Name FileWrite
-    // @Syntax filewrite [path:<path>] [data:<binary>]
+    // @Syntax filewrite [path:<path>] [data:<binary>] (append/offset:<#>)
     // @Required 2
-    // @Maximum 2
+    // @Maximum 3
     // @Short Writes the given raw data to the file at the given path.
     // @Group file
     //
     // @Description
     // Writes the given raw data to the file at the given path.
     //
-    // Will overwrite any existing file at the path.
+    // Will overwrite any existing file at the path, unless "append" or "offset:" is specified.
+    // Specify "append" to add the data to the end of the existing file.
+    // Specify "offset:<#>" to write the data starting at that byte position in the existing file, replacing only the bytes it covers.
     //
     // The starting directory is server/plugins/Denizen.
     //
@@ -51,11 +57,22 @@ public class FileWriteCommand extends AbstractCommand implements Holdable {
     // Use to write some simple text to 'myfile'
     // - ~filewrite path:data/myfile.dat data:<element[Hello].utf8_encode>
     //
+    // @Usage
+    // Use to add a line of text to the end of 'myfile'
+    // - ~filewrite path:data/myfile.txt data:<element[Another line<n>].utf8_encode> append
+    //
     // -->
 
     public static void autoExecute(final ScriptEntry scriptEntry,
                                    @ArgPrefixed @ArgName("path") final String path,
-                                   @ArgPrefixed @ArgName("data") BinaryTag data) {
+                                   @ArgPrefixed @ArgName("data") BinaryTag data,
+                                   @ArgName("append") boolean append,
+                                   @ArgPrefixed @ArgName("offset") @ArgDefaultText("-1") long offset) {
+        if (append && offset >= 0) {
+            Debug.echoError(scriptEntry, "Cannot both append and write at an offset.");
+            scriptEntry.setFinished(true);
+            return;
+        }
         File file = getFileIfSafe(path, scriptEntry);
         if (file == null) {
             return;
@@ -65,9 +82,19 @@ public class FileWriteCommand extends AbstractCommand implements Holdable {
                 if (!file.getParentFile().exists()) {
                     file.getParentFile().mkdirs();
                 }
-                FileOutputStream stream = new FileOutputStream(file);
-                stream.write(data.data);
-                stream.close();
+                if (offset >= 0) {
+                    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                        ByteBuffer buffer = ByteBuffer.wrap(data.data);
+                        while (buffer.hasRemaining()) {
+                            channel.write(buffer, offset + buffer.position());
+                        }
+                    }
+                }
+                else {
+                    try (FileOutputStream stream = new FileOutputStream(file, append)) {
+                        stream.write(data.data);
+                    }
+                }
                 scriptEntry.setFinished(true);
             }
             catch (Exception e) {
@@ -84,15 +111,25 @@ public class FileWriteCommand extends AbstractCommand implements Holdable {
     }
 
     public static File getFileIfSafe(String path, ScriptEntry scriptEntry) {
+        File file = getSafeWriteFile(path, scriptEntry);
+        if (file == null) {
+            scriptEntry.setFinished(true);
+        }
+        return file;
+    }
+
+    /**
+     * Returns the file at the given path (relative to the Denizen folder) if the config permits writing to it, or null (after showing an error) if not.
+     * The script entry is only used for error context, and may be null.
+     */
+    public static File getSafeWriteFile(String path, ScriptEntry scriptEntry) {
         if (!CoreConfiguration.allowFileWrite) {
             Debug.echoError(scriptEntry, "File write disabled in Denizen/config.yml (refer to command documentation).");
-            scriptEntry.setFinished(true);
             return null;
         }
         File file = new File(DenizenCore.implementation.getDataFolder(), path);
         if (!DenizenCore.implementation.canWriteToFile(file)) {
             Debug.echoError("Cannot write to that file path due to security settings in Denizen/config.yml.");
-            scriptEntry.setFinished(true);
             return null;
         }
         try {
@@ -100,14 +137,12 @@ public class FileWriteCommand extends AbstractCommand implements Holdable {
                 File root = new File(DenizenCore.implementation.getDataFolder(), CoreConfiguration.filePathLimit);
                 if (!file.getCanonicalPath().startsWith(root.getCanonicalPath())) {
                     Debug.echoError("File path '" + path + "' is not within the config's restricted data file path.");
-                    scriptEntry.setFinished(true);
                     return null;
                 }
             }
         }
         catch (Exception ex) {
             Debug.echoError(ex);
-            scriptEntry.setFinished(true);
             return null;
         }
         return file;
@@ -3,14 +3,13 @@ package com.denizenscript.denizencore.scripts.commands.file;
 import com.denizenscript.denizencore.scripts.commands.Holdable;
 import com.denizenscript.denizencore.scripts.commands.generator.*;
 import com.denizenscript.denizencore.utilities.CoreConfiguration;
-import com.denizenscript.denizencore.utilities.debugging.DebugLog;
+import com.denizenscript.denizencore.utilities.debugging.LogAppender;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
 import com.denizenscript.denizencore.DenizenCore;
 import com.denizenscript.denizencore.scripts.ScriptEntry;
 import com.denizenscript.denizencore.scripts.commands.AbstractCommand;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.net.URLDecoder;
 
 public class LogCommand extends AbstractCommand implements Holdable {
@@ -52,7 +51,12 @@ public class LogCommand extends AbstractCommand implements Holdable {
     //
     // This command can be disabled by setting Denizen config option "Commands.Log.Allow logging" to false.
     //
-    // This should almost always be ~waited for. Refer to <@link language ~waitable>.
+    // Lines are written in order by a background writer that keeps each file open, so logging many lines is cheap.
+    // Written lines are flushed to the file periodically (by default, once a second), so they may take a moment to appear in the file.
+    // When ~waited for (refer to <@link language ~waitable>), the command waits until the line has been fully written out to the file.
+    //
+    // Log files can be rotated automatically, based on Denizen config options for file size and/or date.
+    // When rotated, the old file is renamed with its date appended (for example 'security.log.2024-01-31'), and a new file is started.
     //
     // @Tags
     // None
@@ -80,6 +84,11 @@ public class LogCommand extends AbstractCommand implements Holdable {
 
     public enum Type {SEVERE, INFO, WARNING, FINE, FINER, FINEST, NONE, CLEAR}
 
+    @Override
+    public void onDisable() {
+        LogAppender.shutdown();
+    }
+
     public static void autoExecute(ScriptEntry scriptEntry,
                                    @ArgRaw @ArgLinear @ArgName("message") String message,
                                    @ArgPrefixed @ArgName("file") String fileName,
@@ -96,61 +105,18 @@ public class LogCommand extends AbstractCommand implements Holdable {
             scriptEntry.setFinished(true);
             return;
         }
-        String output = message;
-        Runnable run = () -> {
-            try {
-                file.getParentFile().mkdirs();
-                if (type == Type.NONE) {
-                    FileWriter fw = new FileWriter(file, true);
-                    fw.write(output + "\n");
-                    fw.close();
-                    return;
-                }
-                else if (type == Type.CLEAR) {
-                    FileWriter fw = new FileWriter(file);
-                    if (output.length() > 0) {
-                        fw.write(output + "\n");
-                    }
-                    fw.close();
-                    return;
-                }
-                DebugLog log = new DebugLog("Denizen-ScriptLog-" + fileName, file.getAbsolutePath());
-                switch (type) {
-                    case SEVERE:
-                        log.severe(output);
-                        break;
-                    case INFO:
-                        log.info(output);
-                        break;
-                    case WARNING:
-                        log.warning(output);
-                        break;
-                    case FINE:
-                        log.fine(output);
-                        break;
-                    case FINER:
-                        log.finer(output);
-                        break;
-                    case FINEST:
-                        log.finest(output);
-                }
-                log.close();
-            }
-            catch (Throwable ex) {
-                DenizenCore.runOnMainThread(() -> {
-                    Debug.echoError(scriptEntry, "Error logging to file...");
-                    Debug.echoError(scriptEntry, ex);
-                });
-            }
-            finally {
-                scriptEntry.setFinished(true);
-            }
-        };
+        LogAppender.LogLine line = new LogAppender.LogLine();
+        line.file = file;
+        line.message = message;
+        line.time = System.currentTimeMillis();
+        line.clear = type == Type.CLEAR;
+        line.level = type == Type.NONE || type == Type.CLEAR ? null : type.name();
         if (scriptEntry.shouldWaitFor()) {
-            DenizenCore.runAsync(run);
+            line.waiting = scriptEntry;
         }
-        else {
-            run.run();
+        LogAppender.get().append(line);
+        if (line.waiting == null) {
+            scriptEntry.setFinished(true);
         }
     }
 }
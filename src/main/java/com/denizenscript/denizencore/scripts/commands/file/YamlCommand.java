@@ -34,7 +34,7 @@ public class YamlCommand extends AbstractCommand implements Holdable {
 
     public YamlCommand() {
         setName("yaml");
-        setSyntax("yaml [create]/[load:<file>]/[loadtext:<text> raw_format]/[unload]/[savefile:<file>]/[copykey:<source_key> <target_key> (to_id:<name>)]/[set <key>([<#>])(:<action>):<value> (data_type:{string}/integer/double/boolean/auto)] [id:<name>]");
+        setSyntax("yaml [create]/[load:<file>]/[loadtext:<text> raw_format]/[unload]/[savefile:<file> (dirty_only)]/[copykey:<source_key> <target_key> (to_id:<name>)]/[set <key>([<#>])(:<action>):<value> (data_type:{string}/integer/double/boolean/auto)] [id:<name>]");
         setRequiredArguments(2, 5);
         TagManager.registerTagHandler(ObjectTag.class, "yaml", this::yamlTagProcess);
         isProcedural = false;
@@ -43,7 +43,7 @@ public class YamlCommand extends AbstractCommand implements Holdable {
 
     // <--[command]
     // @Name Yaml
-    // @Syntax yaml [create]/[load:<file>]/[loadtext:<text> raw_format]/[unload]/[savefile:<file>]/[copykey:<source_key> <target_key> (to_id:<name>)]/[set <key>([<#>])(:<action>):<value> (data_type:{string}/integer/double/boolean/auto)] [id:<name>]
+    // @Syntax yaml [create]/[load:<file>]/[loadtext:<text> raw_format]/[unload]/[savefile:<file> (dirty_only)]/[copykey:<source_key> <target_key> (to_id:<name>)]/[set <key>([<#>])(:<action>):<value> (data_type:{string}/integer/double/boolean/auto)] [id:<name>]
     // @Required 2
     // @Maximum 5
     // @Short Edits YAML data, especially for YAML files.
@@ -74,6 +74,12 @@ public class YamlCommand extends AbstractCommand implements Holdable {
     //
     // In-memory changes to a loaded YAML object will mark that object as having changes. Before saving,
     // you can check whether the YAML object needs to be written to disk with the has_changes tag.
+    // When saving, optionally specify 'dirty_only' to skip the save entirely if the YAML object has no changes.
+    // Note that a YAML file can't be partially rewritten, so a save always writes out the whole file.
+    //
+    // Saving copies the YAML object's data on the spot, then (when ~waited) converts it to text and writes the file off the main thread.
+    // Only the sections along the path of each change since the last save are copied again, and everything else is reused from the previous save.
+    // For example, after changing 'players.<uuid>.coins', a save copies that one player's section, plus a list of the entries under 'players' (but not their contents).
     //
     // Note that the '.yml' extension is not automatically appended, and you will have to include that in filenames.
     //
@@ -112,6 +118,10 @@ public class YamlCommand extends AbstractCommand implements Holdable {
     // - ~yaml savefile:myfile.yml id:myfile
     //
     // @Usage
+    // Use to save a YAML file to disk, but only if it has changed since it was loaded or last saved.
+    // - ~yaml savefile:myfile.yml id:myfile dirty_only
+    //
+    // @Usage
     // Use to unload a YAML file from memory.
     // - yaml unload id:myfile
     //
@@ -215,6 +225,10 @@ public class YamlCommand extends AbstractCommand implements Holdable {
                     arg.matches("raw_format")) {
                 scriptEntry.addObject("raw_format", new ElementTag("true"));
             }
+            else if (!scriptEntry.hasObject("dirty_only") &&
+                    arg.matches("dirty_only")) {
+                scriptEntry.addObject("dirty_only", new ElementTag("true"));
+            }
             else if (!scriptEntry.hasObject("data_type") &&
                     arg.matchesPrefix("data_type") &&
                     arg.matchesEnum(DataType.class)) {
@@ -255,10 +269,11 @@ public class YamlCommand extends AbstractCommand implements Holdable {
         ElementTag toId = scriptEntry.getElement("to_id");
         ElementTag dataType = scriptEntry.getElement("data_type");
         ElementTag rawFormat = scriptEntry.getElement("raw_format");
+        ElementTag dirtyOnly = scriptEntry.getElement("dirty_only");
         DataAction dataAction = (DataAction) scriptEntry.getObject("data_action");
         YamlConfiguration yamlConfiguration;
         if (scriptEntry.dbCallShouldDebug()) {
-            Debug.report(scriptEntry, getName(), idElement, actionElement, filename, key, value, split, rawText, toId, dataType, rawFormat, (yaml_action != null ? db("yaml_action", yaml_action.name()) : null), dataAction);
+            Debug.report(scriptEntry, getName(), idElement, actionElement, filename, key, value, split, rawText, toId, dataType, rawFormat, dirtyOnly, (yaml_action != null ? db("yaml_action", yaml_action.name()) : null), dataAction);
         }
         // Do action
         Action action = actionElement.asEnum(Action.class);
@@ -282,6 +297,7 @@ public class YamlCommand extends AbstractCommand implements Holdable {
                 YamlConfiguration[] runnableConfigs = new YamlConfiguration[1];
                 Runnable onLoadCompleted = () -> {
                     yamlDocuments.remove(id);
+                    runnableConfigs[0].pathIndexLimit = CoreConfiguration.yamlPathIndexSize;
                     yamlDocuments.put(id, runnableConfigs[0]);
                     scriptEntry.setFinished(true);
                 };
@@ -310,6 +326,9 @@ public class YamlCommand extends AbstractCommand implements Holdable {
             case LOADTEXT:
                 String str = rawText.asString();
                 YamlConfiguration config = YamlConfiguration.load(str);
+                if (config != null) {
+                    config.pathIndexLimit = CoreConfiguration.yamlPathIndexSize;
+                }
                 yamlDocuments.remove(id);
                 yamlDocuments.put(id, config);
                 scriptEntry.setFinished(true);
@@ -324,6 +343,11 @@ public class YamlCommand extends AbstractCommand implements Holdable {
                 break;
             case SAVE:
                 if (yamlDocuments.containsKey(id)) {
+                    if (dirtyOnly != null && !yamlDocuments.get(id).isDirty()) {
+                        Debug.echoDebug(scriptEntry, "YAML '" + id + "' has no changes, not saving.");
+                        scriptEntry.setFinished(true);
+                        return;
+                    }
                     try {
                         if (!CoreConfiguration.allowStrangeFileSaves) {
                             File fileObj = new File(DenizenCore.implementation.
@@ -344,10 +368,11 @@ public class YamlCommand extends AbstractCommand implements Holdable {
                         }
                         fileObj.getParentFile().mkdirs();
                         YamlConfiguration yaml = yamlDocuments.get(id);
-                        String outp = yaml.saveToString(false);
+                        Map<String, Object> snapshot = yaml.snapshot();
                         yaml.setDirty(false);
                         Runnable saveRunnable = () -> {
                             try {
+                                String outp = YamlConfiguration.dump(snapshot);
                                 Charset charset = CoreConfiguration.scriptEncoding == null ? null : CoreConfiguration.scriptEncoding.charset();
                                 FileOutputStream fiout = new FileOutputStream(fileObj);
                                 OutputStreamWriter writer;
@@ -360,7 +385,7 @@ public class YamlCommand extends AbstractCommand implements Holdable {
                                 writer.write(outp);
                                 writer.close();
                             }
-                            catch (IOException e) {
+                            catch (Exception e) {
                                 Debug.echoError(e);
                             }
                             scriptEntry.setFinished(true);
@@ -554,6 +579,7 @@ public class YamlCommand extends AbstractCommand implements Holdable {
             case CREATE:
                 yamlDocuments.remove(id);
                 yamlConfiguration = new YamlConfiguration();
+                yamlConfiguration.pathIndexLimit = CoreConfiguration.yamlPathIndexSize;
                 yamlDocuments.put(id, yamlConfiguration);
                 break;
         }
@@ -3,10 +3,57 @@ package com.denizenscript.denizencore.scripts.queues;
 import com.denizenscript.denizencore.scripts.commands.CommandExecutor;
 import com.denizenscript.denizencore.scripts.queues.core.TimedQueue;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
+import com.denizenscript.denizencore.utilities.debugging.StallWatchdog;
 import com.denizenscript.denizencore.scripts.ScriptEntry;
 
 public class ScriptEngine {
 
+    /**
+     * The script entries currently executing on the main thread, outermost first. Only the first 'entryDepth' values are valid.
+     * Published for background samplers, which may read a slightly out of date view.
+     */
+    public static ScriptEntry[] entryStack = new ScriptEntry[16];
+
+    public static volatile int entryDepth = 0;
+
+    /**
+     * Returns the innermost script entry currently executing on the main thread, or null if none.
+     */
+    public static ScriptEntry getCurrentEntry() {
+        int depth = entryDepth;
+        ScriptEntry[] stack = entryStack;
+        return depth == 0 || depth > stack.length ? null : stack[depth - 1];
+    }
+
+    /**
+     * Returns a copy of the script entries currently executing on the main thread, outermost first.
+     */
+    public static ScriptEntry[] getEntryStack() {
+        int depth = entryDepth;
+        ScriptEntry[] stack = entryStack;
+        ScriptEntry[] result = new ScriptEntry[Math.min(depth, stack.length)];
+        System.arraycopy(stack, 0, result, 0, result.length);
+        return result;
+    }
+
+    static void execute(ScriptEntry scriptEntry) {
+        int depth = entryDepth;
+        if (depth == entryStack.length) {
+            ScriptEntry[] newStack = new ScriptEntry[depth * 2];
+            System.arraycopy(entryStack, 0, newStack, 0, depth);
+            entryStack = newStack;
+        }
+        entryStack[depth] = scriptEntry;
+        entryDepth = depth + 1;
+        try {
+            CommandExecutor.execute(scriptEntry);
+        }
+        finally {
+            entryDepth = depth;
+            entryStack[depth] = null;
+        }
+    }
+
     static boolean shouldHold(ScriptQueue scriptQueue) {
         if (scriptQueue instanceof TimedQueue && ((TimedQueue) scriptQueue).isPaused()) {
             return true;
@@ -33,7 +80,7 @@ public class ScriptEngine {
             scriptQueue.holdingOn = scriptEntry;
         }
         try {
-            CommandExecutor.execute(scriptEntry);
+            execute(scriptEntry);
         }
         catch (Throwable e) {
             Debug.echoError(scriptEntry, "An exception has been called with this command (while revolving the queue forcefully)!");
@@ -42,6 +89,20 @@ public class ScriptEngine {
     }
 
     public static void revolve(ScriptQueue scriptQueue) {
+        if (StallWatchdog.enabled && StallWatchdog.revolveStartNanos == 0) {
+            StallWatchdog.revolveStartNanos = System.nanoTime();
+            try {
+                revolveInternal(scriptQueue);
+            }
+            finally {
+                StallWatchdog.revolveStartNanos = 0;
+            }
+            return;
+        }
+        revolveInternal(scriptQueue);
+    }
+
+    static void revolveInternal(ScriptQueue scriptQueue) {
         if (shouldHold(scriptQueue)) {
             return;
         }
@@ -53,7 +114,7 @@ public class ScriptEngine {
             if (scriptEntry.internal.waitfor) {
                 scriptQueue.holdingOn = scriptEntry;
             }
-            CommandExecutor.execute(scriptEntry);
+            execute(scriptEntry);
             if (scriptQueue instanceof TimedQueue) {
                 TimedQueue delayedQueue = (TimedQueue) scriptQueue;
                 if (delayedQueue.isDelayed() || delayedQueue.isPaused()) {
@@ -9,6 +9,7 @@ import com.denizenscript.denizencore.scripts.queues.core.TimedQueue;
 import com.denizenscript.denizencore.utilities.*;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
 import com.denizenscript.denizencore.utilities.debugging.Debuggable;
+import com.denizenscript.denizencore.utilities.debugging.ExecutionTracer;
 import com.denizenscript.denizencore.utilities.scheduling.OneTimeSchedulable;
 import com.denizenscript.denizencore.utilities.scheduling.Schedulable;
 
@@ -325,6 +326,9 @@ public abstract class ScriptQueue implements Debuggable, DefinitionProvider {
                 }
             }
         }
+        if (ExecutionTracer.enabled) {
+            ExecutionTracer.queueStarted(this);
+        }
         if (is_delayed) {
             Schedulable schedulable = new OneTimeSchedulable(this::onStart, ((float) delay) / 1000);
             DenizenCore.schedule(schedulable);
@@ -363,6 +367,9 @@ public abstract class ScriptQueue implements Debuggable, DefinitionProvider {
 
     private void stopSilent() {
         is_stopping = true;
+        if (ExecutionTracer.enabled) {
+            ExecutionTracer.queueStopped(this);
+        }
         allQueues.remove(id);
         is_started = false;
         isStopped = true;
@@ -8,6 +8,7 @@ import com.denizenscript.denizencore.scripts.ScriptEntry;
 import com.denizenscript.denizencore.utilities.CoreConfiguration;
 import com.denizenscript.denizencore.utilities.CoreUtilities;
 import com.denizenscript.denizencore.utilities.DefinitionProvider;
+import com.denizenscript.denizencore.utilities.SegmentedLRUCache;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
 
 import java.util.*;
@@ -48,7 +49,10 @@ public class Attribute {
         }
     }
 
-    public static HashMap<String, AttributeComponent[]> attribsLookup = new HashMap<>();
+    /**
+     * Cache of raw attribute text to its separated components. Size is controlled by CoreConfiguration.tagAttributeCacheSize.
+     */
+    public static SegmentedLRUCache<String, AttributeComponent[]> attribsLookup = new SegmentedLRUCache<>("tag_attributes", 16, CoreConfiguration.tagAttributeCacheSize);
 
     private static boolean isNumber(char c) {
         return c >= '0' && c <= '9';
@@ -130,7 +134,13 @@ public class Attribute {
 
     String origin;
 
-    public ArrayList<String> seemingSuccesses = new ArrayList<>(2);
+    /**
+     * Tag names that almost matched, for error output. Null until something is tracked.
+     * Use trackSeemingSuccess and getLastSeemingSuccess rather than accessing this directly.
+     */
+    private ArrayList<String> seemingSuccesses = null;
+
+    public final TagContext.ShowErrorsMethod showErrorsMethod = () -> !hasAlternative();
 
     /* Referenced by TagCodeGenerator */
     public boolean hadManualFulfill = false;
@@ -148,12 +158,26 @@ public class Attribute {
         if (CoreConfiguration.debugVerbose) {
             Debug.echoError("(Verbose) Attribute - error track reset");
         }
-        if (!seemingSuccesses.isEmpty()) {
+        if (seemingSuccesses != null && !seemingSuccesses.isEmpty()) {
             seemingSuccesses.clear();
         }
         hasContextFailed = false;
     }
 
+    public void trackSeemingSuccess(String tagName) {
+        if (seemingSuccesses == null) {
+            seemingSuccesses = new ArrayList<>(2);
+        }
+        seemingSuccesses.add(tagName);
+    }
+
+    public String getLastSeemingSuccess() {
+        if (seemingSuccesses == null || seemingSuccesses.isEmpty()) {
+            return null;
+        }
+        return seemingSuccesses.get(seemingSuccesses.size() - 1);
+    }
+
     public ScriptEntry getScriptEntry() {
         return scriptEntry;
     }
@@ -172,7 +196,7 @@ public class Attribute {
             context = CoreUtilities.basicContext;
         }
         this.context = context.clone();
-        this.context.showErrors = () -> !hasAlternative();
+        this.context.showErrors = showErrorsMethod;
     }
 
     public Attribute(Attribute ref, ScriptEntry scriptEntry, TagContext context, int skippable) {
@@ -191,6 +215,53 @@ public class Attribute {
         fulfilled = skippable;
     }
 
+    /**
+     * Re-initializes a pooled attribute frame to the same state as the equivalent constructor would produce.
+     * Existing arrays are reused when large enough, so that a warm frame doesn't allocate.
+     */
+    public void reinitialize(Attribute ref, ScriptEntry scriptEntry, TagContext context, int skippable) {
+        origin = ref.origin;
+        this.scriptEntry = scriptEntry;
+        hadAlternative = false;
+        setContext(context);
+        attributes = ref.attributes;
+        int length = attributes.length;
+        if (contexts == null || contexts.length < length) {
+            contexts = new ObjectTag[length];
+        }
+        setHadAlternative(ref.hadAlternative);
+        if (this.context.debug) {
+            if (filled == null || filled.length < length) {
+                filled = new int[length];
+            }
+            else {
+                Arrays.fill(filled, 0);
+            }
+            for (int i = 0; i < skippable; i++) {
+                filled[i] = 3;
+            }
+        }
+        else {
+            filled = null;
+        }
+        fulfilled = skippable;
+        hadManualFulfill = false;
+        lastValid = null;
+        resetErrorTrack();
+    }
+
+    /**
+     * Drops references held by a pooled attribute frame once its tag evaluation is complete.
+     */
+    public void clearForPool() {
+        if (contexts != null) {
+            Arrays.fill(contexts, null);
+        }
+        scriptEntry = null;
+        context = null;
+        lastValid = null;
+    }
+
     public Attribute(String attributes, ScriptEntry scriptEntry, TagContext context) throws TagProcessingException {
         origin = attributes;
         this.scriptEntry = scriptEntry;
@@ -229,14 +300,14 @@ public class Attribute {
             if (CoreConfiguration.debugVerbose) {
                 Debug.log("Chain-Tag found!");
             }
-            seemingSuccesses.add(string);
+            trackSeemingSuccess(string);
             return true;
         }
         if (attributes[fulfilled].key.equals(string)) {
             if (CoreConfiguration.debugVerbose) {
                 Debug.log("Sub-tag found!");
             }
-            seemingSuccesses.add(string);
+            trackSeemingSuccess(string);
             return true;
         }
         return false;
@@ -277,7 +348,7 @@ public class Attribute {
     /* Referenced by TagCodeGenerator */
     public final void trackLastTagFailure() {
         if (fulfilled < attributes.length) {
-            seemingSuccesses.add(attributes[fulfilled].key);
+            trackSeemingSuccess(attributes[fulfilled].key);
             if (filled != null) {
                 filled[fulfilled] = 2;
             }
@@ -387,6 +458,132 @@ public class Attribute {
         }
     }
 
+    /**
+     * A dynamic tag parameter that has been pre-parsed once, for repeated evaluation against different values.
+     * The named definitions (eg 'parse_value') are bound to fixed slots that are checked before the original definition provider.
+     * Setting a slot and re-running the parameter does not re-parse the tag text or re-enter the tag parse cache.
+     */
+    public static class DynamicParamClosure implements DefinitionProvider {
+
+        public final TagContext context;
+
+        public final DefinitionProvider originalProvider;
+
+        public final ParseableTag parseable;
+
+        public final String[] slotNames;
+
+        public final ObjectTag[] slotValues;
+
+        public DynamicParamClosure(TagContext context, ParseableTag parseable, String... slotNames) {
+            this.context = context;
+            this.originalProvider = context.definitionProvider;
+            this.parseable = parseable;
+            this.slotNames = slotNames;
+            this.slotValues = new ObjectTag[slotNames.length];
+        }
+
+        public final ObjectTag run(ObjectTag value) {
+            slotValues[0] = value;
+            return run();
+        }
+
+        public final ObjectTag run(ObjectTag first, ObjectTag second) {
+            slotValues[0] = first;
+            slotValues[1] = second;
+            return run();
+        }
+
+        public final ObjectTag run() {
+            DefinitionProvider previous = context.definitionProvider;
+            context.definitionProvider = this;
+            try {
+                return parseable.parse(context);
+            }
+            finally {
+                context.definitionProvider = previous;
+            }
+        }
+
+        public final ObjectTag getSlot(String definition) {
+            for (int i = 0; i < slotNames.length; i++) {
+                String name = slotNames[i];
+                int len = name.length();
+                if (definition.length() == len) {
+                    if (CoreUtilities.equalsIgnoreCase(definition, name)) {
+                        return slotValues[i];
+                    }
+                }
+                else if (definition.length() > len && definition.charAt(len) == '.' && definition.regionMatches(true, 0, name, 0, len)) {
+                    ObjectTag value = slotValues[i];
+                    if (value instanceof MapTag) {
+                        return ((MapTag) value).getDeepObject(CoreUtilities.toLowerCase(definition.substring(len + 1)));
+                    }
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void addDefinition(String definition, String value) {
+            originalProvider.addDefinition(definition, value);
+        }
+
+        @Override
+        public void addDefinition(String definition, ObjectTag value) {
+            originalProvider.addDefinition(definition, value);
+        }
+
+        @Override
+        public MapTag getAllDefinitions() {
+            return originalProvider.getAllDefinitions();
+        }
+
+        @Override
+        public ObjectTag getDefinitionObject(String definition) {
+            ObjectTag result = getSlot(definition);
+            if (result != null) {
+                return result;
+            }
+            return originalProvider.getDefinitionObject(definition);
+        }
+
+        @Override
+        public String getDefinition(String definition) {
+            ObjectTag result = getSlot(definition);
+            if (result != null) {
+                return result.toString();
+            }
+            return originalProvider.getDefinition(definition);
+        }
+
+        @Override
+        public boolean hasDefinition(String definition) {
+            return getSlot(definition) != null || originalProvider.hasDefinition(definition);
+        }
+
+        @Override
+        public void removeDefinition(String definition) {
+            originalProvider.removeDefinition(definition);
+        }
+    }
+
+    /**
+     * Pre-parses the current raw parameter into a closure with the given definition names bound to slots, or returns null if there is no parameter.
+     */
+    public final DynamicParamClosure compileDynamicParam(String... slotNames) {
+        String inp = getRawParam();
+        if (inp == null) {
+            return null;
+        }
+        ParseableTag parseable = TagManager.parseTextToTag(inp, context);
+        if (parseable == null) {
+            return null;
+        }
+        return new DynamicParamClosure(context, parseable, slotNames);
+    }
+
     public final MapTag inputParameterMap() {
         ObjectTag contextObj = getParamObject();
         if (contextObj == null) {
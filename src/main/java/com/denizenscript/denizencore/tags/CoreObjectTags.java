@@ -187,9 +187,7 @@ public class CoreObjectTags {
             if (!attribute.hasParam()) {
                 return null;
             }
-            Attribute.OverridingDefinitionProvider provider = new Attribute.OverridingDefinitionProvider(attribute.context.definitionProvider);
-            provider.altDefs.putObject("null_if_value", object);
-            if (CoreUtilities.equalsIgnoreCase(attribute.parseDynamicParam(provider).toString(), "true")) {
+            if (CoreUtilities.equalsIgnoreCase(attribute.compileDynamicParam("null_if_value").run(object).toString(), "true")) {
                 return null;
             }
             return object;
@@ -8,6 +8,7 @@ import com.denizenscript.denizencore.scripts.ScriptEntry;
 import com.denizenscript.denizencore.utilities.CoreConfiguration;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
 
+import java.util.Arrays;
 import java.util.HashMap;
 
 public class ReplaceableTagEvent {
@@ -21,7 +22,26 @@ public class ReplaceableTagEvent {
 
     public ObjectTag replaced_obj;
 
+    /**
+     * The input tag text, used to build the default un-replaced value only if it's actually requested.
+     */
+    private String default_text;
+
+    private boolean hasSetObject = false;
+
+    /**
+     * False if this event may still be in use by another thread (eg a timed out tag), and so must not be returned to its pool.
+     */
+    public boolean canRecycle = true;
+
     public ObjectTag getReplacedObj() {
+        if (!hasSetObject) {
+            // If tag is not replaced, return the tag
+            // TODO: Possibly make this return "null" ... might break some
+            // scripts using tags incorrectly, but makes more sense overall
+            replaced_obj = new ElementTag(default_text);
+            hasSetObject = true;
+        }
         return replaced_obj;
     }
 
@@ -50,11 +70,65 @@ public class ReplaceableTagEvent {
 
     public static HashMap<String, ReferenceData> refs = new HashMap<>();
 
+    /**
+     * Per-thread stack of reusable events (and their attribute frames) for the main tag evaluation path.
+     * Frames are acquired and released in strict nesting order, so nested tags (eg tags inside tag parameters) each get their own frame.
+     */
+    public static final class EventPool {
+
+        public ReplaceableTagEvent[] events = new ReplaceableTagEvent[16];
+
+        public int depth = 0;
+    }
+
+    public static final ThreadLocal<EventPool> pools = ThreadLocal.withInitial(EventPool::new);
+
+    /**
+     * Gets a ready-to-fire event for the given tag from the current thread's pool.
+     * Must be paired with a call to 'release' once the result has been read.
+     */
+    public static ReplaceableTagEvent acquire(ReferenceData ref, String tag, TagContext context) {
+        EventPool pool = pools.get();
+        if (pool.depth == pool.events.length) {
+            pool.events = Arrays.copyOf(pool.events, pool.depth * 2);
+        }
+        ReplaceableTagEvent event = pool.events[pool.depth];
+        if (event == null) {
+            event = new ReplaceableTagEvent(ref, tag, context);
+            pool.events[pool.depth] = event;
+        }
+        else {
+            event.reinitialize(ref, tag, context);
+        }
+        pool.depth++;
+        return event;
+    }
+
+    public static void release(ReplaceableTagEvent event) {
+        EventPool pool = pools.get();
+        pool.depth--;
+        if (!event.canRecycle || pool.events[pool.depth] != event) {
+            pool.events[pool.depth] = null;
+            return;
+        }
+        event.core_attributes.clearForPool();
+        event.replaced_obj = null;
+        event.hasSetObject = false;
+        event.default_text = null;
+        event.value_tagged = null;
+        event.alternateBase = null;
+    }
+
+    private void reinitialize(ReferenceData ref, String tag, TagContext context) {
+        wasReplaced = false;
+        default_text = tag;
+        mainRef = ref;
+        core_attributes.reinitialize(ref.attribs, context.entry, context, ref.skippable);
+        raw_tag = ref.rawTag;
+    }
+
     public ReplaceableTagEvent(ReferenceData ref, String tag, TagContext context) {
-        // If tag is not replaced, return the tag
-        // TODO: Possibly make this return "null" ... might break some
-        // scripts using tags incorrectly, but makes more sense overall
-        this.replaced_obj = new ElementTag(tag);
+        default_text = tag;
         if (ref != null) {
             mainRef = ref;
             core_attributes = new Attribute(ref.attribs, context.entry, context, ref.skippable);
@@ -223,6 +297,7 @@ public class ReplaceableTagEvent {
 
     public void setReplacedObject(ObjectTag obj) {
         replaced_obj = obj;
+        hasSetObject = true;
         wasReplaced = obj != null;
     }
 
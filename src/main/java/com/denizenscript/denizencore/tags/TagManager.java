@@ -8,16 +8,19 @@ import com.denizenscript.denizencore.tags.core.*;
 import com.denizenscript.denizencore.utilities.AsciiMatcher;
 import com.denizenscript.denizencore.utilities.CoreConfiguration;
 import com.denizenscript.denizencore.utilities.CoreUtilities;
+import com.denizenscript.denizencore.utilities.SegmentedLRUCache;
 import com.denizenscript.denizencore.utilities.codegen.TagCodeGenerator;
 import com.denizenscript.denizencore.utilities.codegen.TagNamer;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
 import com.denizenscript.denizencore.DenizenCore;
 import com.denizenscript.denizencore.utilities.debugging.DebugInternals;
+import com.denizenscript.denizencore.utilities.debugging.ExecutionTracer;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 
 public class TagManager {
@@ -176,27 +179,83 @@ public class TagManager {
 
     public static volatile Thread tagThread = null;
 
-    public static void executeWithTimeLimit(final ReplaceableTagEvent event, int seconds) {
-        ExecutorService executor = Executors.newFixedThreadPool(4);
-        Future<?> future = executor.submit(() -> {
-            try {
-                tagThread = Thread.currentThread();
-                DenizenCore.implementation.preTagExecute();
-                if (isInTag) {
+    /**
+     * Worker thread for time-limited tags. 'cancelled' is set when the tag it's running times out, so that any further nested tags are skipped.
+     */
+    public static class TagThread extends Thread {
+
+        public static int threadCount = 0;
+
+        public volatile boolean cancelled = false;
+
+        public TagThread(Runnable runnable) {
+            super(runnable, "Denizen Tag Thread " + (++threadCount));
+            setDaemon(true);
+        }
+    }
+
+    /**
+     * Shared executor for time-limited tags. Idle threads are kept for reuse, and expire after a minute unused.
+     * The thread count is bounded: threads only accumulate when prior timed out tags refuse to stop.
+     */
+    public static final ThreadPoolExecutor tagExecutor = new ThreadPoolExecutor(0, 4, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), TagThread::new);
+
+    /**
+     * Returns true if the current thread is a tag thread whose time-limited tag has already timed out.
+     */
+    public static boolean isTagCancelled() {
+        Thread thread = Thread.currentThread();
+        return thread instanceof TagThread && ((TagThread) thread).cancelled;
+    }
+
+    /**
+     * Fires the tag event as the designated tag thread, with the implementation's pre/post tag execution handshake.
+     */
+    public static void fireEventAsTagThread(ReplaceableTagEvent event) {
+        Thread thread = Thread.currentThread();
+        try {
+            tagThread = thread;
+            DenizenCore.implementation.preTagExecute();
+            if (isInTag) {
+                fireEvent(event);
+            }
+            else {
+                isInTag = true;
+                try {
                     fireEvent(event);
                 }
-                else {
-                    isInTag = true;
-                    fireEvent(event);
+                finally {
                     isInTag = false;
                 }
             }
-            finally {
-                DenizenCore.implementation.postTagExecute();
+        }
+        finally {
+            DenizenCore.implementation.postTagExecute();
+            // A previously timed out tag thread may finish late, after another tag thread has taken over
+            if (tagThread == thread) {
                 tagThread = null;
             }
-        });
-        executor.shutdown();
+        }
+    }
+
+    public static void executeWithTimeLimit(final ReplaceableTagEvent event, int seconds) {
+        Future<?> future;
+        AtomicReference<Thread> worker = new AtomicReference<>();
+        try {
+            future = tagExecutor.submit(() -> {
+                Thread thread = Thread.currentThread();
+                if (thread instanceof TagThread) {
+                    ((TagThread) thread).cancelled = false;
+                }
+                worker.set(thread);
+                fireEventAsTagThread(event);
+            });
+        }
+        catch (RejectedExecutionException ex) {
+            Debug.echoError("Tag filling cannot be time-limited: all tag threads are still busy with previously timed out tags.");
+            fireEvent(event);
+            return;
+        }
         try {
             future.get(seconds, TimeUnit.SECONDS);
         }
@@ -207,15 +266,24 @@ public class TagManager {
             Debug.echoError(e);
         }
         catch (TimeoutException e) {
+            event.canRecycle = false;
+            Thread thread = worker.get();
+            if (thread instanceof TagThread) {
+                ((TagThread) thread).cancelled = true;
+            }
             future.cancel(true);
             Debug.echoError("Tag filling timed out!");
         }
-        executor.shutdownNow();
     }
 
     public static ObjectTag readSingleTagObject(ParseableTagPiece tag, TagContext context) {
-        ReplaceableTagEvent event = new ReplaceableTagEvent(tag.tagData, tag.content, context);
-        return readSingleTagObject(context, event);
+        ReplaceableTagEvent event = ReplaceableTagEvent.acquire(tag.tagData, tag.content, context);
+        try {
+            return readSingleTagObject(context, event);
+        }
+        finally {
+            ReplaceableTagEvent.release(event);
+        }
     }
 
     public static boolean recentTagError = true;
@@ -225,8 +293,12 @@ public class TagManager {
         if (CoreConfiguration.debugVerbose) {
             Debug.log("Tag read: " + event.raw_tag + ", " + tT + "...");
         }
+        if (isTagCancelled()) {
+            return null;
+        }
         TagContext last = Debug.currentContext;
         Debug.currentContext = context;
+        long traceStart = ExecutionTracer.enabled ? System.nanoTime() : 0;
         try {
             if (tT <= 0 || isInTag || (!Debug.shouldDebug(context) && !CoreConfiguration.tagTimeoutWhenSilent)) {
                 fireEvent(event);
@@ -241,6 +313,9 @@ public class TagManager {
         }
         finally {
             Debug.currentContext = last;
+            if (traceStart != 0) {
+                ExecutionTracer.tagSpan(event.raw_tag, traceStart);
+            }
         }
     }
 
@@ -250,6 +325,9 @@ public class TagManager {
             Debug.echoDebug(context, "<G>Filled tag <<W>" + event + "<G>> with '<W>" + event.getReplacedObj().debuggable() + "<G>'.");
         }
         if (!event.replaced()) {
+            if (isTagCancelled()) {
+                return new ElementTag(event.raw_tag);
+            }
             String tagStr = "<LG><" + event + "<LG>><W>";
             Debug.echoError(context, "Tag " + tagStr + " is invalid!");
             recentTagError = true;
@@ -264,8 +342,8 @@ public class TagManager {
                     if (attribute.lastValid != null) {
                         Debug.echoError(context, "The returned value from initial tag fragment '<LG>" + attribute.filledString() + "<W>' was: '<LG>" + attribute.lastValid.debuggable() + "<W>'.");
                     }
-                    if (attribute.seemingSuccesses.size() > 0) {
-                        String almost = attribute.seemingSuccesses.get(attribute.seemingSuccesses.size() - 1);
+                    String almost = attribute.getLastSeemingSuccess();
+                    if (almost != null) {
                         if (attribute.hasContextFailed) {
                             Debug.echoError(context, "Almost matched but failed (missing [context] parameter?): " + almost);
                         }
@@ -282,7 +360,10 @@ public class TagManager {
 
     public static Pattern OBJECTTAG_CONFUSION_PATTERN = Pattern.compile("<\\w+tag[\\[.>].*", Pattern.CASE_INSENSITIVE);
 
-    public static HashMap<String, ParseableTag> preCalced = new HashMap<>();
+    /**
+     * Cache of raw tag text to its pre-parsed form. Size is controlled by CoreConfiguration.tagParseCacheSize.
+     */
+    public static SegmentedLRUCache<String, ParseableTag> preCalced = new SegmentedLRUCache<>("tag_parse", 16, CoreConfiguration.tagParseCacheSize);
 
     public static ParseableTag DEFAULT_PARSEABLE_EMPTY = new ParseableTag("");
 
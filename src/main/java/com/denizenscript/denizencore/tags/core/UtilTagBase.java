@@ -14,12 +14,18 @@ import com.denizenscript.denizencore.scripts.commands.core.MongoCommand;
 import com.denizenscript.denizencore.scripts.commands.core.SQLCommand;
 import com.denizenscript.denizencore.scripts.commands.queue.RunLaterCommand;
 import com.denizenscript.denizencore.scripts.queues.ScriptQueue;
+import com.denizenscript.denizencore.tags.Attribute;
 import com.denizenscript.denizencore.tags.PseudoObjectTagBase;
 import com.denizenscript.denizencore.tags.TagManager;
 import com.denizenscript.denizencore.utilities.*;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
 import com.denizenscript.denizencore.utilities.debugging.DebugInternals;
+import com.denizenscript.denizencore.utilities.debugging.ExecutionProfiler;
+import com.denizenscript.denizencore.utilities.debugging.ExecutionTracer;
+import com.denizenscript.denizencore.utilities.debugging.ScriptSampler;
+import com.denizenscript.denizencore.utilities.debugging.StallWatchdog;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
 
 import java.io.File;
 import java.nio.charset.Charset;
@@ -609,6 +615,67 @@ public class UtilTagBase extends PseudoObjectTagBase<UtilTagBase> {
             return ScriptQueue.getStatsRawData();
         });
 
+        // <--[tag]
+        // @attribute <util.tag_cache_stats>
+        // @returns ListTag(MapTag)
+        // @description
+        // Returns statistics on the internal tag parsing caches, as a ListTag of MapTags.
+        // Each map has keys "name", "size", "max_size", "hits", "misses", and "evictions".
+        // Cache sizes are controlled by the Denizen config.
+        // @tags
+        // <util.event_stats_data>
+        // -->
+        tagProcessor.registerTag(ListTag.class, "tag_cache_stats", (attribute, object) -> {
+            return new ListTag(Arrays.asList(TagManager.preCalced, Attribute.attribsLookup), cache -> {
+                MapTag map = new MapTag();
+                map.putObject("name", new ElementTag(cache.name, true));
+                map.putObject("size", new ElementTag(cache.size()));
+                map.putObject("max_size", new ElementTag(cache.getMaxSize()));
+                map.putObject("hits", new ElementTag(cache.hits.sum()));
+                map.putObject("misses", new ElementTag(cache.misses.sum()));
+                map.putObject("evictions", new ElementTag(cache.evictions.sum()));
+                return map;
+            });
+        });
+
+        // <--[tag]
+        // @attribute <util.execution_profile>
+        // @returns MapTag
+        // @description
+        // Returns the results of the execution profiler (see <@link mechanism system.execution_profiler>), as a MapTag.
+        // Has keys "enabled", "duration", "tags", and "commands".
+        // "tags" is a map of tag name (like "ElementTag.add" or "<util>") to statistics, and "commands" is a map of script line (like "my_script:12 DEBUG") to statistics.
+        // Each statistics map has keys "calls", "total_time", "self_time", and "allocated_bytes".
+        // Only executions on the main thread are tracked. Allocation estimates are 0 if the JVM doesn't support per-thread allocation tracking.
+        // @tags
+        // <util.event_stats_data>
+        // -->
+        tagProcessor.registerTag(MapTag.class, "execution_profile", (attribute, object) -> {
+            return ExecutionProfiler.getResultsMap();
+        });
+
+        // <--[tag]
+        // @attribute <util.execution_trace>
+        // @returns MapTag
+        // @description
+        // Returns the status of the execution tracer (see <@link mechanism system.start_execution_trace>), as a MapTag.
+        // Has key "enabled", and while a trace is running also "file", "events_written", and "events_dropped".
+        // -->
+        tagProcessor.registerTag(MapTag.class, "execution_trace", (attribute, object) -> {
+            return ExecutionTracer.getStatus();
+        });
+
+        // <--[tag]
+        // @attribute <util.script_sampler>
+        // @returns MapTag
+        // @description
+        // Returns the status of the script sampler (see <@link mechanism system.script_sampler>), as a MapTag.
+        // Has key "enabled", and while the sampler is running also "duration", "total_samples", "script_samples" (samples taken while a script was running), "window_samples", and "last_file" (if any file has been written yet).
+        // -->
+        tagProcessor.registerTag(MapTag.class, "script_sampler", (attribute, object) -> {
+            return ScriptSampler.getStatus();
+        });
+
         // <--[tag]
         // @attribute <util.default_encoding>
         // @returns ElementTag
@@ -868,10 +935,13 @@ public class UtilTagBase extends PseudoObjectTagBase<UtilTagBase> {
         // @attribute <util.sql_connections>
         // @returns ListTag
         // @description
-        // Returns a list of all SQL connections opened by <@link command sql>.
+        // Returns a list of all SQL connections (including connection pools) opened by <@link command sql>.
         // -->
         tagProcessor.registerTag(ListTag.class, "sql_connections", (attribute, object) -> {
-            ListTag result = new ListTag(SQLCommand.connections.size());
+            ListTag result = new ListTag(SQLCommand.connections.size() + SQLCommand.pools.size());
+            for (String id : SQLCommand.pools.keySet()) {
+                result.addObject(new ElementTag(id, true));
+            }
             Iterator<Map.Entry<String, Connection>> connections = SQLCommand.connections.entrySet().iterator();
             while (connections.hasNext()) {
                 try {
@@ -890,11 +960,26 @@ public class UtilTagBase extends PseudoObjectTagBase<UtilTagBase> {
             return result;
         });
 
+        // <--[tag]
+        // @attribute <util.sql_pool_stats>
+        // @returns MapTag
+        // @description
+        // Returns a map of SQL connection pool ID to statistics about that pool, for pools opened by <@link command sql> with "pool_size:".
+        // Each statistics map has keys "size", "active", "queued", "completed", "failed", "rejected", "average_wait", "average_run", "statement_cache_hits", and "statement_cache_misses".
+        // -->
+        tagProcessor.registerTag(MapTag.class, "sql_pool_stats", (attribute, object) -> {
+            MapTag result = new MapTag();
+            for (Map.Entry<String, SQLConnectionPool> pool : SQLCommand.pools.entrySet()) {
+                result.putObject(pool.getKey(), pool.getValue().getStats());
+            }
+            return result;
+        });
+
         // <--[tag]
         // @attribute <util.redis_connections>
         // @returns ListTag
         // @description
-        // Returns a list of all Redis connections opened by <@link command redis>.
+        // Returns a list of all Redis connections opened by <@link command redis>, including pooled connections.
         // -->
         if (CommandRegistry.shouldRegisterByClass("Redis command", "redis.clients.jedis.Jedis")) {
             tagProcessor.registerTag(ListTag.class, "redis_connections", (attribute, object) -> {
@@ -909,6 +994,26 @@ public class UtilTagBase extends PseudoObjectTagBase<UtilTagBase> {
                         connections.remove();
                     }
                 }
+                for (String pool : RedisHelper.pools.keySet()) {
+                    result.addObject(new ElementTag(pool, true));
+                }
+                return result;
+            });
+
+            // <--[tag]
+            // @attribute <util.redis_pubsub_stats>
+            // @returns MapTag
+            // @description
+            // Returns a map of Redis connection IDs that are subscribed via <@link command redis> to a map of message delivery statistics:
+            // "buffered" (whether delivered per tick), "queued" (waiting for delivery), "received", "delivered", "dropped" (queue was full), and "events_fired".
+            // -->
+            tagProcessor.registerTag(MapTag.class, "redis_pubsub_stats", (attribute, object) -> {
+                MapTag result = new MapTag();
+                for (Map.Entry<String, JedisPubSub> subscription : RedisHelper.subscriptions.entrySet()) {
+                    if (subscription.getValue() instanceof DenizenJedisPubSub pubSub) {
+                        result.putObject(subscription.getKey(), pubSub.getStats());
+                    }
+                }
                 return result;
             });
         }
@@ -1075,6 +1180,135 @@ public class UtilTagBase extends PseudoObjectTagBase<UtilTagBase> {
             }
         });
 
+        // <--[mechanism]
+        // @object system
+        // @name reset_tag_cache_stats
+        // @input None
+        // @description
+        // Resets the hit/miss/eviction counters used for <@link tag util.tag_cache_stats>
+        // @tags
+        // <util.tag_cache_stats>
+        // -->
+        tagProcessor.registerMechanism("reset_tag_cache_stats", false, (object, mechanism) -> {
+            TagManager.preCalced.resetStats();
+            Attribute.attribsLookup.resetStats();
+        });
+
+        // <--[mechanism]
+        // @object system
+        // @name execution_profiler
+        // @input ElementTag(Boolean)
+        // @description
+        // Starts (true) or stops (false) the execution profiler, which tracks time and allocations spent in each tag and each script command line.
+        // Starting the profiler clears any previous results.
+        // Profiling has a performance cost of its own, and should only be enabled while actively investigating performance.
+        // @tags
+        // <util.execution_profile>
+        // -->
+        tagProcessor.registerMechanism("execution_profiler", false, ElementTag.class, (object, mechanism, input) -> {
+            if (!mechanism.requireBoolean()) {
+                return;
+            }
+            if (input.asBoolean()) {
+                ExecutionProfiler.start();
+            }
+            else {
+                ExecutionProfiler.stop();
+            }
+        });
+
+        // <--[mechanism]
+        // @object system
+        // @name save_execution_profile
+        // @input ElementTag
+        // @description
+        // Saves the call tree recorded by the execution profiler to file "debug/profiles/<name>.collapsed" within the Denizen folder.
+        // The file is in the "collapsed stacks" format, with time values in microseconds, and can be loaded into common flamegraph tools.
+        // @tags
+        // <util.execution_profile>
+        // -->
+        tagProcessor.registerMechanism("save_execution_profile", false, ElementTag.class, (object, mechanism, input) -> {
+            ExecutionProfiler.saveCollapsedStacks(input.asString());
+        });
+
+        // <--[mechanism]
+        // @object system
+        // @name start_execution_trace
+        // @input ElementTag
+        // @description
+        // Starts the execution tracer, writing to file "debug/traces/<name>.json" within the Denizen folder. Stops any trace already running.
+        // The tracer records a timeline of ticks, queue lifetimes, command executions, script event fires, slow tag fills, and async handoffs (with arrows linking each handoff to where it was scheduled).
+        // Only tags that take longer than the 'traceTagThresholdMicros' setting are recorded.
+        // The file is in the Chrome Trace Event format, and can be opened with chrome://tracing or ui.perfetto.dev.
+        // Use <@link mechanism system.stop_execution_trace> to finish the file.
+        // Tracing has a performance cost of its own, and should only be enabled while actively investigating performance.
+        // @tags
+        // <util.execution_trace>
+        // -->
+        tagProcessor.registerMechanism("start_execution_trace", false, ElementTag.class, (object, mechanism, input) -> {
+            ExecutionTracer.start(input.asString());
+        });
+
+        // <--[mechanism]
+        // @object system
+        // @name stop_execution_trace
+        // @input None
+        // @description
+        // Stops the execution tracer, writing out everything recorded and closing the trace file.
+        // @tags
+        // <util.execution_trace>
+        // -->
+        tagProcessor.registerMechanism("stop_execution_trace", false, (object, mechanism) -> {
+            ExecutionTracer.stop();
+        });
+
+        // <--[mechanism]
+        // @object system
+        // @name script_sampler
+        // @input ElementTag(Boolean)
+        // @description
+        // Starts (true) or stops (false) the script sampler, which periodically checks which script lines the main thread is running, without slowing down the scripts themselves.
+        // Each window of samples is saved to file "debug/profiles/sampled_<time>.collapsed" within the Denizen folder, in the same format as <@link mechanism system.save_execution_profile>.
+        // Stopping the sampler saves the partial current window.
+        // The sample rate, window length, and number of files kept are controlled by the 'scriptSamplerIntervalMillis', 'scriptSamplerWindowSeconds', and 'scriptSamplerMaxFiles' settings.
+        // @tags
+        // <util.script_sampler>
+        // -->
+        tagProcessor.registerMechanism("script_sampler", false, ElementTag.class, (object, mechanism, input) -> {
+            if (!mechanism.requireBoolean()) {
+                return;
+            }
+            if (input.asBoolean()) {
+                ScriptSampler.start();
+            }
+            else {
+                ScriptSampler.stop();
+            }
+        });
+
+        // <--[mechanism]
+        // @object system
+        // @name stall_watchdog
+        // @input ElementTag(Boolean)
+        // @description
+        // Starts (true) or stops (false) the stall watchdog, which watches for a single tick or a single queue run taking too long.
+        // The thresholds are controlled by the 'stallTickThresholdMillis' and 'stallRevolveThresholdMillis' settings.
+        // When a stall is detected, the running script line and the Java stack of the main thread are written to file "debug/stalls.log" within the Denizen folder,
+        // and <@link event main thread stalls> fires once the main thread is free.
+        // The watchdog never interrupts the stalled code.
+        // -->
+        tagProcessor.registerMechanism("stall_watchdog", false, ElementTag.class, (object, mechanism, input) -> {
+            if (!mechanism.requireBoolean()) {
+                return;
+            }
+            if (input.asBoolean()) {
+                StallWatchdog.start();
+            }
+            else {
+                StallWatchdog.stop();
+            }
+        });
+
         // <--[mechanism]
         // @object system
         // @name cleanmem
@@ -18,6 +18,16 @@ public class CoreConfiguration {
 
     public static int debugLimitPerTick = 5000, debugTrimLength = 1024, debugLineLength = 300;
 
+    public static boolean debugAsyncOutput = false;
+
+    public static int debugAsyncQueueSize = 16384;
+
+    public static String debugAsyncDropPolicy = "block";
+
+    public static int debugRecordingChunkSize = 1024 * 1024;
+
+    public static long debugRecordingMaxSize = 256 * 1024 * 1024;
+
     public static boolean allowWebget = false, allowSQL = false, allowRedis = false, allowMongo = false, allowLog = false, allowFileCopy = false, allowWebserver = false, allowFileRead = false, allowFileWrite = false, allowFileDeletion = false;
 
     public static boolean allowConsoleRedirection = false, allowRestrictedActions = false, allowStrangeFileSaves = false;
@@ -26,6 +36,34 @@ public class CoreConfiguration {
 
     public static int tagTimeout = 0;
 
+    public static int tagParseCacheSize = 65536, tagAttributeCacheSize = 65536;
+
+    public static int webgetThreads = 8, webserverThreads = 8;
+
+    public static long webserverFileCacheBytes = 64 * 1024 * 1024;
+
+    public static int sqlStatementCacheSize = 64, sqlPoolQueueLimit = 10000, sqlBatchSize = 1000;
+
+    public static int redisPubSubQueueLimit = 100000;
+
+    public static int redisPoolMaxWaitMillis = 10000;
+
+    public static int fileCopyThreads = 4;
+
+    public static int yamlPathIndexSize = 4096;
+
+    public static int traceQueueSize = 65536, traceTagThresholdMicros = 100;
+
+    public static int scriptSamplerIntervalMillis = 10, scriptSamplerWindowSeconds = 60, scriptSamplerMaxFiles = 10;
+
+    public static int stallTickThresholdMillis = 1000, stallRevolveThresholdMillis = 500;
+
+    public static int logQueueLimit = 10000, logFlushIntervalMillis = 1000, logMaxOpenFiles = 32;
+
+    public static long logRotateSizeBytes = 0;
+
+    public static boolean logRotateDaily = false;
+
     public static boolean defaultDebugMode = true;
 
     public static int whileMaxLoops = 10000;
@@ -295,7 +295,7 @@ public class CoreUtilities {
             Property prop = specificGetter.get(object);
             if (prop == null) {
                 String propName = properties.propertyNamesByTag.get(tagName);
-                attribute.seemingSuccesses.add(attribute.getAttributeWithoutParam(1) + " - property " + propName + " matched, but is not valid for the object.");
+                attribute.trackSeemingSuccess(attribute.getAttributeWithoutParam(1) + " - property " + propName + " matched, but is not valid for the object.");
                 return null;
             }
             return prop.getObjectAttribute(attribute);
@@ -340,34 +340,18 @@ public class CoreUtilities {
     }
 
     public static void copyDirectory(Path source, Path destination, HashSet<String> excludeExtensions) throws IOException {
-        Files.walk(source).forEach(file -> {
-            try {
-                if (excludeExtensions != null) {
-                    String name = file.getFileName().toString();
-                    int dot = name.indexOf('.');
-                    if (dot >= 0) {
-                        String ext = toLowerCase(name.substring(dot + 1));
-                        if (excludeExtensions.contains(ext)) {
-                            return;
-                        }
-                    }
-                }
-                Path destPath = destination.resolve(source.relativize(file));
-                destPath.getParent().toFile().mkdirs();
-                if (!DenizenCore.implementation.canReadFile(file.toFile())) {
-                    Debug.echoError("Directory copy excluding read-file '" + file + "' due to security restrictions in config.");
-                }
-                else if (!DenizenCore.implementation.canWriteToFile(destPath.toFile())) {
-                    Debug.echoError("Directory copy excluding write-file '" + file + "' due to security restrictions in config.");
-                }
-                else {
-                    Files.copy(file, destPath);
-                }
-            }
-            catch (IOException ex) {
-                throw new RuntimeException(ex);
+        FileCopier copier = new FileCopier(source, destination);
+        copier.excludeExtensions = excludeExtensions;
+        copier.failOnExisting = true;
+        try {
+            if (!copier.run(null, 1000)) {
+                throw new IOException("Failed to copy " + copier.filesFailed.get() + " file(s) from '" + source + "'");
             }
-        });
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        }
     }
 
     static Random random = new Random();
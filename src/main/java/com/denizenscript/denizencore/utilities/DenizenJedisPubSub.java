@@ -2,20 +2,156 @@ package com.denizenscript.denizencore.utilities;
 
 import com.denizenscript.denizencore.DenizenCore;
 import com.denizenscript.denizencore.events.core.RedisPubSubMessageScriptEvent;
+import com.denizenscript.denizencore.objects.core.ElementTag;
+import com.denizenscript.denizencore.objects.core.ListTag;
+import com.denizenscript.denizencore.objects.core.MapTag;
+import com.denizenscript.denizencore.utilities.scheduling.RepeatingSchedulable;
 import redis.clients.jedis.JedisPubSub;
 
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
 public class DenizenJedisPubSub extends JedisPubSub {
 
+    public static class QueuedMessage {
+
+        public final String pattern, channel, message;
+
+        public QueuedMessage(String pattern, String channel, String message) {
+            this.pattern = pattern;
+            this.channel = channel;
+            this.message = message;
+        }
+    }
+
     public String connID;
 
+    /**
+     * If true, messages are queued and delivered once per tick rather than each being scheduled separately.
+     */
+    public boolean buffered;
+
+    /**
+     * If true (requires 'buffered'), all messages for the same pattern and channel in a tick are delivered together as one event.
+     */
+    public boolean batched;
+
+    /**
+     * The maximum number of messages delivered per tick (requires 'buffered'), or 0 for no limit. Messages past the limit wait for the next tick.
+     */
+    public int maxPerTick;
+
+    public final ConcurrentLinkedQueue<QueuedMessage> queue = new ConcurrentLinkedQueue<>();
+
+    public final AtomicInteger queueSize = new AtomicInteger();
+
+    public final LongAdder received = new LongAdder(), delivered = new LongAdder(), dropped = new LongAdder(), eventsFired = new LongAdder();
+
+    public RepeatingSchedulable deliveryTask;
+
     public DenizenJedisPubSub(String connID) {
         this.connID = connID;
     }
 
+    public DenizenJedisPubSub(String connID, boolean batched, int maxPerTick) {
+        this.connID = connID;
+        this.batched = batched;
+        this.maxPerTick = Math.max(0, maxPerTick);
+        buffered = batched || maxPerTick > 0;
+        if (buffered) {
+            deliveryTask = new RepeatingSchedulable(this::deliverQueued, 0);
+            DenizenCore.schedule(deliveryTask);
+        }
+    }
+
     @Override
     public void onPMessage(String pattern, String channel, String message) {
-        DenizenCore.runOnMainThread(() -> {
-            RedisPubSubMessageScriptEvent.instance.handle(this.connID, CoreUtilities.toLowerCase(pattern), CoreUtilities.toLowerCase(channel), message);
-        });
+        received.increment();
+        if (!buffered) {
+            DenizenCore.runOnMainThread(() -> {
+                delivered.increment();
+                eventsFired.increment();
+                RedisPubSubMessageScriptEvent.instance.handle(this.connID, CoreUtilities.toLowerCase(pattern), CoreUtilities.toLowerCase(channel), message);
+            });
+            return;
+        }
+        if (queueSize.get() >= CoreConfiguration.redisPubSubQueueLimit) {
+            dropped.increment();
+            return;
+        }
+        queueSize.incrementAndGet();
+        queue.add(new QueuedMessage(CoreUtilities.toLowerCase(pattern), CoreUtilities.toLowerCase(channel), message));
+    }
+
+    /**
+     * Delivers queued messages on the main thread, called once per tick while buffered.
+     */
+    public void deliverQueued() {
+        int limit = maxPerTick == 0 ? Integer.MAX_VALUE : maxPerTick;
+        if (!batched) {
+            QueuedMessage queued;
+            for (int i = 0; i < limit && (queued = queue.poll()) != null; i++) {
+                queueSize.decrementAndGet();
+                delivered.increment();
+                eventsFired.increment();
+                RedisPubSubMessageScriptEvent.instance.handle(connID, queued.pattern, queued.channel, queued.message);
+            }
+            return;
+        }
+        LinkedHashMap<String, ListTag> batches = null;
+        LinkedHashMap<String, QueuedMessage> firstOfBatch = null;
+        QueuedMessage queued;
+        for (int i = 0; i < limit && (queued = queue.poll()) != null; i++) {
+            queueSize.decrementAndGet();
+            delivered.increment();
+            if (batches == null) {
+                batches = new LinkedHashMap<>();
+                firstOfBatch = new LinkedHashMap<>();
+            }
+            String key = queued.pattern + "\n" + queued.channel;
+            ListTag messages = batches.get(key);
+            if (messages == null) {
+                messages = new ListTag();
+                batches.put(key, messages);
+                firstOfBatch.put(key, queued);
+            }
+            messages.addObject(new ElementTag(queued.message, true));
+        }
+        if (batches == null) {
+            return;
+        }
+        for (String key : batches.keySet()) {
+            QueuedMessage first = firstOfBatch.get(key);
+            eventsFired.increment();
+            RedisPubSubMessageScriptEvent.instance.handleBatch(connID, first.pattern, first.channel, batches.get(key));
+        }
+    }
+
+    public void stopDelivery() {
+        if (deliveryTask != null) {
+            deliveryTask.cancel();
+            deliveryTask = null;
+        }
+        queue.clear();
+        queueSize.set(0);
+    }
+
+    @Override
+    public void punsubscribe() {
+        stopDelivery();
+        super.punsubscribe();
+    }
+
+    public MapTag getStats() {
+        MapTag result = new MapTag();
+        result.putObject("buffered", new ElementTag(buffered));
+        result.putObject("queued", new ElementTag(queueSize.get()));
+        result.putObject("received", new ElementTag(received.sum()));
+        result.putObject("delivered", new ElementTag(delivered.sum()));
+        result.putObject("dropped", new ElementTag(dropped.sum()));
+        result.putObject("events_fired", new ElementTag(eventsFired.sum()));
+        return result;
     }
 }
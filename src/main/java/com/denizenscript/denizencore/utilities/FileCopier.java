@@ -0,0 +1,196 @@
+package com.denizenscript.denizencore.utilities;
+
+import com.denizenscript.denizencore.DenizenCore;
+import com.denizenscript.denizencore.utilities.debugging.Debug;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copies a file or directory tree, spreading the files of a directory across a shared pool of copy threads.
+ * Large files are copied with FileChannel.transferTo, which lets the OS move the data without passing it through the Java heap.
+ * Can optionally skip files that already exist at the destination, or only those that appear unchanged (same size and modification time).
+ */
+public class FileCopier {
+
+    /**
+     * Files at least this large are copied by channel transfer rather than Files.copy.
+     */
+    public static final long TRANSFER_THRESHOLD = 1024 * 1024;
+
+    public static ThreadPoolExecutor executor;
+
+    public static synchronized ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            int threads = Math.max(1, CoreConfiguration.fileCopyThreads);
+            AtomicInteger threadCount = new AtomicInteger();
+            executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), (runnable) -> {
+                Thread thread = new Thread(runnable, "Denizen File Copy Thread " + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    public final Path source, destination;
+
+    public HashSet<String> excludeExtensions;
+
+    /**
+     * If true, existing destination files are replaced. If false, they're left alone and counted as skipped.
+     */
+    public boolean overwrite;
+
+    /**
+     * If true, existing destination files with the same size and modification time as the source are skipped, and any others are replaced.
+     */
+    public boolean incremental;
+
+    /**
+     * If true (and neither 'overwrite' nor 'incremental' is set), an existing destination file counts as a failure rather than being skipped.
+     */
+    public boolean failOnExisting;
+
+    public final AtomicInteger totalFiles = new AtomicInteger(), filesCopied = new AtomicInteger(), filesSkipped = new AtomicInteger(), filesFailed = new AtomicInteger();
+
+    public final AtomicLong totalBytes = new AtomicLong(), bytesCopied = new AtomicLong();
+
+    public FileCopier(Path source, Path destination) {
+        this.source = source;
+        this.destination = destination;
+    }
+
+    public boolean isExcluded(Path file) {
+        if (excludeExtensions == null) {
+            return false;
+        }
+        String name = file.getFileName().toString();
+        int dot = name.indexOf('.');
+        return dot >= 0 && excludeExtensions.contains(CoreUtilities.toLowerCase(name.substring(dot + 1)));
+    }
+
+    /**
+     * Runs the copy, blocking until every file is done. 'onProgress' (may be null) is called from this thread roughly once per 'progressMillis' while waiting.
+     * Returns true if every file was copied or skipped without error.
+     */
+    public boolean run(Runnable onProgress, long progressMillis) throws IOException, InterruptedException {
+        if (!Files.isDirectory(source)) {
+            totalFiles.set(1);
+            totalBytes.set(Files.size(source));
+            copyFile(source, destination);
+            return filesFailed.get() == 0;
+        }
+        List<Path[]> files = new ArrayList<>();
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(destination.resolve(source.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (!isExcluded(file)) {
+                    files.add(new Path[] { file, destination.resolve(source.relativize(file)) });
+                    totalBytes.addAndGet(attrs.size());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        totalFiles.set(files.size());
+        CountDownLatch remaining = new CountDownLatch(files.size());
+        ThreadPoolExecutor pool = getExecutor();
+        for (Path[] pair : files) {
+            pool.execute(() -> {
+                try {
+                    copyFile(pair[0], pair[1]);
+                }
+                finally {
+                    remaining.countDown();
+                }
+            });
+        }
+        while (!remaining.await(progressMillis, TimeUnit.MILLISECONDS)) {
+            if (onProgress != null) {
+                onProgress.run();
+            }
+        }
+        return filesFailed.get() == 0;
+    }
+
+    public void copyFile(Path from, Path to) {
+        try {
+            if (!DenizenCore.implementation.canReadFile(from.toFile())) {
+                Debug.echoError("File copy excluding read-file '" + from + "' due to security restrictions in config.");
+                filesSkipped.incrementAndGet();
+                return;
+            }
+            if (!DenizenCore.implementation.canWriteToFile(to.toFile())) {
+                Debug.echoError("File copy excluding write-file '" + to + "' due to security restrictions in config.");
+                filesSkipped.incrementAndGet();
+                return;
+            }
+            BasicFileAttributes fromAttributes = Files.readAttributes(from, BasicFileAttributes.class);
+            if (Files.exists(to)) {
+                if (incremental) {
+                    BasicFileAttributes toAttributes = Files.readAttributes(to, BasicFileAttributes.class);
+                    if (toAttributes.size() == fromAttributes.size() && toAttributes.lastModifiedTime().toMillis() == fromAttributes.lastModifiedTime().toMillis()) {
+                        filesSkipped.incrementAndGet();
+                        return;
+                    }
+                }
+                else if (!overwrite) {
+                    if (failOnExisting) {
+                        throw new FileAlreadyExistsException(to.toString());
+                    }
+                    filesSkipped.incrementAndGet();
+                    return;
+                }
+            }
+            Path parent = to.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            long size = fromAttributes.size();
+            if (size >= TRANSFER_THRESHOLD) {
+                try (FileChannel in = FileChannel.open(from, StandardOpenOption.READ);
+                     FileChannel out = FileChannel.open(to, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    long position = 0;
+                    while (position < size) {
+                        long moved = in.transferTo(position, size - position, out);
+                        if (moved <= 0) {
+                            break;
+                        }
+                        position += moved;
+                        bytesCopied.addAndGet(moved);
+                    }
+                }
+                Files.setLastModifiedTime(to, fromAttributes.lastModifiedTime());
+            }
+            else {
+                Files.copy(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                bytesCopied.addAndGet(size);
+            }
+            filesCopied.incrementAndGet();
+        }
+        catch (Throwable ex) {
+            filesFailed.incrementAndGet();
+            Debug.echoError("Failed to copy file '" + from + "':");
+            Debug.echoError(ex);
+        }
+    }
+
+    public String getProgressText() {
+        return "Copied " + filesCopied.get() + " and skipped " + filesSkipped.get() + " of " + totalFiles.get() + " files (" + bytesCopied.get() + " of " + totalBytes.get() + " bytes)";
+    }
+}
@@ -11,9 +11,18 @@ import com.denizenscript.denizencore.scripts.ScriptEntry;
 import com.denizenscript.denizencore.scripts.commands.AbstractCommand;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
 import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.commands.ProtocolCommand;
 import redis.clients.jedis.util.SafeEncoder;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -22,7 +31,21 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 public class RedisHelper {
 
+    /**
+     * Connection details for a pooled connection ID, used to open the dedicated connection that a subscription needs.
+     */
+    public static class PoolConnectInfo {
+
+        public String host, password;
+
+        public int port;
+
+        public boolean ssl;
+    }
+
     public static Map<String, Jedis> connections = new HashMap<>();
+    public static Map<String, JedisPool> pools = new HashMap<>();
+    public static Map<String, PoolConnectInfo> poolConnectInfo = new HashMap<>();
     public static Map<String, JedisPubSub> subscriptions = new HashMap<>();
 
     public static AtomicBoolean isEnabled = new AtomicBoolean(true);
@@ -47,6 +70,125 @@ public class RedisHelper {
             }
         }
         connections.clear();
+        for (Map.Entry<String, JedisPool> entry : pools.entrySet()) {
+            try {
+                entry.getValue().close();
+            }
+            catch (Exception e) {
+                Debug.echoError(e);
+            }
+        }
+        pools.clear();
+        poolConnectInfo.clear();
+    }
+
+    @FunctionalInterface
+    public interface JedisTask {
+
+        void run(Jedis jedis) throws Exception;
+    }
+
+    /**
+     * Runs a task with a connection borrowed from the pool (and returned after) if there is one, otherwise with the single given connection.
+     */
+    public static void withConnection(JedisPool pool, Jedis con, JedisTask task) throws Exception {
+        if (pool == null) {
+            task.run(con);
+            return;
+        }
+        try (Jedis jedis = pool.getResource()) {
+            task.run(jedis);
+        }
+    }
+
+    /**
+     * Opens a new standalone connection using the details a pool was created with.
+     */
+    public static Jedis openDedicatedConnection(PoolConnectInfo info) {
+        Jedis jedis = new Jedis(info.host, info.port, info.ssl);
+        if (info.password != null) {
+            jedis.auth(info.password);
+        }
+        return jedis;
+    }
+
+    public static ProtocolCommand getProtocolCommand(String command) {
+        byte[] raw = SafeEncoder.encode(command);
+        return () -> raw;
+    }
+
+    /**
+     * Converts a list of commands into arrays of command name followed by arguments.
+     * Each entry is either a single command line (split like a script argument list), or a list of the command name followed by arguments.
+     */
+    public static List<String[]> parseCommandList(ListTag commands, ScriptEntry scriptEntry) {
+        List<String[]> result = new ArrayList<>(commands.size());
+        for (ObjectTag entry : commands.objectForms) {
+            ListTag parts = ListTag.getListFor(entry, scriptEntry.context);
+            if (parts.size() == 1) {
+                result.add(ArgumentHelper.buildArgs(parts.get(0), false));
+            }
+            else {
+                result.add(parts.toArray(new String[0]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sends all commands in one round trip, optionally wrapped in a MULTI/EXEC transaction, and returns a list of the responses in order.
+     * A command that fails has a response of "null", and its error is echoed.
+     */
+    public static ListTag runPipeline(Jedis jedis, List<String[]> commands, boolean transaction, ScriptEntry scriptEntry) {
+        ListTag result = new ListTag(commands.size());
+        List<String> errors = new ArrayList<>();
+        if (transaction) {
+            Transaction multi = jedis.multi();
+            for (String[] command : commands) {
+                multi.sendCommand(getProtocolCommand(command[0]), Arrays.copyOfRange(command, 1, command.length));
+            }
+            List<Object> responses = multi.exec();
+            if (responses == null) {
+                throw new IllegalStateException("Transaction was aborted by the server.");
+            }
+            for (int i = 0; i < responses.size(); i++) {
+                Object response = responses.get(i);
+                if (response instanceof Exception ex) {
+                    errors.add("Command " + (i + 1) + " (" + commands.get(i)[0] + ") failed: " + ex.getMessage());
+                    response = null;
+                }
+                ObjectTag processed = processResponse(response);
+                result.addObject(processed == null ? new ElementTag("null", true) : processed);
+            }
+        }
+        else {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<Object>> responses = new ArrayList<>(commands.size());
+            for (String[] command : commands) {
+                responses.add(pipeline.sendCommand(getProtocolCommand(command[0]), Arrays.copyOfRange(command, 1, command.length)));
+            }
+            pipeline.sync();
+            for (int i = 0; i < responses.size(); i++) {
+                Object response;
+                try {
+                    response = responses.get(i).get();
+                }
+                catch (Exception ex) {
+                    errors.add("Command " + (i + 1) + " (" + commands.get(i)[0] + ") failed: " + ex.getMessage());
+                    response = null;
+                }
+                ObjectTag processed = processResponse(response);
+                result.addObject(processed == null ? new ElementTag("null", true) : processed);
+            }
+        }
+        if (!errors.isEmpty()) {
+            DenizenCore.runOnMainThread(() -> {
+                for (String error : errors) {
+                    Debug.echoError(scriptEntry, "Redis Exception: " + error);
+                }
+            });
+        }
+        return result;
     }
 
     public static ObjectTag processResponse(Object response) {
@@ -99,12 +241,23 @@ public class RedisHelper {
         ListTag channels = scriptEntry.getObjectTag("channels");
         ElementTag channel = scriptEntry.getElement("channel");
         ElementTag command = scriptEntry.getElement("command");
+        ListTag pipelineCommands = scriptEntry.getObjectTag("commands");
+        boolean batchMessages = scriptEntry.argAsBoolean("batch");
+        ElementTag maxPerTick = scriptEntry.argForPrefixAsElement("max_per_tick", "0");
+        ElementTag poolSize = scriptEntry.argForPrefixAsElement("pool_size", null);
+        boolean transaction = scriptEntry.argAsBoolean("transaction");
+        if (!maxPerTick.isInt()) {
+            throw new InvalidArgumentsRuntimeException("Max per tick must be an integer number.");
+        }
+        if (poolSize != null && (!poolSize.isInt() || poolSize.asInt() < 1)) {
+            throw new InvalidArgumentsRuntimeException("Pool size must be a positive integer number.");
+        }
         String redisID = id.asLowerString();
         if (scriptEntry.dbCallShouldDebug()) {
-            Debug.report(scriptEntry, "redis", id, action, host, auth, port, AbstractCommand.db("ssl", ssl), channels, channel, message, command, args);
+            Debug.report(scriptEntry, "redis", id, action, host, auth, port, AbstractCommand.db("ssl", ssl), poolSize, channels, channel, message, command, args, pipelineCommands, AbstractCommand.db("transaction", transaction), AbstractCommand.db("batch", batchMessages), maxPerTick);
         }
         if (!action.asString().equalsIgnoreCase("connect") &&
-                (!action.asString().equalsIgnoreCase("command") || !scriptEntry.shouldWaitFor())) {
+                ((!action.asString().equalsIgnoreCase("command") && !action.asString().equalsIgnoreCase("pipeline")) || !scriptEntry.shouldWaitFor())) {
             scriptEntry.setFinished(true);
         }
         try {
@@ -114,24 +267,45 @@ public class RedisHelper {
                     scriptEntry.setFinished(true);
                     return;
                 }
-                if (connections.containsKey(redisID)) {
+                if (connections.containsKey(redisID) || pools.containsKey(redisID)) {
                     Debug.echoError(scriptEntry, "Already connected to a server with ID '" + redisID + "'!");
                     scriptEntry.setFinished(true);
                     return;
                 }
                 runChecked(() -> {
                     Jedis con = null;
+                    JedisPool newPool = null;
                     if (CoreConfiguration.debugVerbose) {
                         Debug.echoDebug(scriptEntry, "Connecting to " + host + " on port " + port);
                     }
+                    String password = null;
                     try {
-                        con = new Jedis(host.asString(), port.asInt(), ssl);
                         if (auth != null) {
-                            String[] redisArgs = new String[] { auth.shouldBeType(SecretTag.class) ? auth.asType(SecretTag.class, scriptEntry.context).getValue() : auth.toString() };
-                            if (redisArgs[0] == null) {
+                            password = auth.shouldBeType(SecretTag.class) ? auth.asType(SecretTag.class, scriptEntry.context).getValue() : auth.toString();
+                            if (password == null) {
                                 throw new Exception("Invalid SecretTag input for AUTH.");
                             }
-                            con.sendCommand(() -> SafeEncoder.encode("AUTH"), redisArgs);
+                        }
+                        if (poolSize != null) {
+                            JedisPoolConfig poolConfig = new JedisPoolConfig();
+                            poolConfig.setMaxTotal(poolSize.asInt());
+                            poolConfig.setMaxIdle(poolSize.asInt());
+                            poolConfig.setMaxWait(Duration.ofMillis(Math.max(1, CoreConfiguration.redisPoolMaxWaitMillis)));
+                            newPool = new JedisPool(poolConfig, host.asString(), port.asInt(), Protocol.DEFAULT_TIMEOUT, password, ssl);
+                            try (Jedis test = newPool.getResource()) {
+                                test.ping();
+                            }
+                            catch (Exception ex) {
+                                newPool.close();
+                                newPool = null;
+                                throw ex;
+                            }
+                        }
+                        else {
+                            con = new Jedis(host.asString(), port.asInt(), ssl);
+                            if (password != null) {
+                                con.sendCommand(() -> SafeEncoder.encode("AUTH"), password);
+                            }
                         }
                     }
                     catch (final Exception e) {
@@ -147,10 +321,22 @@ public class RedisHelper {
                         Debug.echoDebug(scriptEntry, "Connection did not error");
                     }
                     final Jedis conn = con;
-                    if (con != null) {
+                    final JedisPool connPool = newPool;
+                    final PoolConnectInfo connectInfo = new PoolConnectInfo();
+                    connectInfo.host = host.asString();
+                    connectInfo.port = port.asInt();
+                    connectInfo.ssl = ssl;
+                    connectInfo.password = password;
+                    if (con != null || newPool != null) {
                         DenizenCore.runOnMainThread(() -> {
-                            connections.put(redisID, conn);
-                            Debug.echoDebug(scriptEntry, "Successfully connected to " + host + " on port " + port);
+                            if (connPool != null) {
+                                pools.put(redisID, connPool);
+                                poolConnectInfo.put(redisID, connectInfo);
+                            }
+                            else {
+                                connections.put(redisID, conn);
+                            }
+                            Debug.echoDebug(scriptEntry, "Successfully connected to " + host + " on port " + port + (connPool == null ? "" : " with a pool of " + poolSize + " connections"));
                             scriptEntry.setFinished(true);
                         });
                     }
@@ -165,8 +351,9 @@ public class RedisHelper {
                 }, scriptEntry);
                 return;
             }
+            JedisPool pool = pools.get(redisID);
             Jedis con = connections.get(redisID);
-            if (con == null) {
+            if (con == null && pool == null) {
                 Debug.echoError(scriptEntry, "Not connected to redis server with ID '" + redisID + "'!");
                 scriptEntry.setFinished(true);
                 return;
@@ -174,6 +361,8 @@ public class RedisHelper {
             if (action.asString().equalsIgnoreCase("disconnect")) {
                 scriptEntry.setFinished(true);
                 connections.remove(redisID);
+                pools.remove(redisID);
+                poolConnectInfo.remove(redisID);
                 JedisPubSub pubSub = subscriptions.remove(redisID);
                 if (pubSub != null) {
                     try {
@@ -185,7 +374,12 @@ public class RedisHelper {
                     }
                 }
                 try {
-                    con.close();
+                    if (pool != null) {
+                        pool.close();
+                    }
+                    else {
+                        con.close();
+                    }
                 }
                 catch (Exception e) {
                     Debug.echoError(e);
@@ -198,13 +392,34 @@ public class RedisHelper {
                     scriptEntry.setFinished(true);
                     return;
                 }
-                JedisPubSub jedisPubSub = new DenizenJedisPubSub(redisID);
+                DenizenJedisPubSub jedisPubSub = new DenizenJedisPubSub(redisID, batchMessages, maxPerTick.asInt());
                 subscriptions.put(redisID, jedisPubSub);
                 String[] channelArr = new String[channels.size()];
                 for (int i = 0; i < channels.size(); i++) {
                     channelArr[i] = CoreUtilities.toLowerCase(channels.get(i));
                 }
-                runChecked(() -> { con.psubscribe(jedisPubSub, channelArr); scriptEntry.setFinished(true); }, scriptEntry);
+                PoolConnectInfo connectInfo = poolConnectInfo.get(redisID);
+                runChecked(() -> {
+                    try {
+                        if (pool == null) {
+                            con.psubscribe(jedisPubSub, channelArr);
+                        }
+                        else {
+                            // A subscription holds its connection until unsubscribed, so it gets its own rather than taking one out of the pool
+                            try (Jedis jedis = openDedicatedConnection(connectInfo)) {
+                                jedis.psubscribe(jedisPubSub, channelArr);
+                            }
+                        }
+                    }
+                    catch (Exception ex) {
+                        DenizenCore.runOnMainThread(() -> {
+                            jedisPubSub.stopDelivery();
+                            subscriptions.remove(redisID, jedisPubSub);
+                        });
+                        throw new RuntimeException(ex);
+                    }
+                    scriptEntry.setFinished(true);
+                }, scriptEntry);
             }
             else if (action.asString().equalsIgnoreCase("unsubscribe")) {
                 scriptEntry.setFinished(true);
@@ -226,7 +441,7 @@ public class RedisHelper {
                     scriptEntry.setFinished(true);
                     return;
                 }
-                if (subscriptions.containsKey(redisID)) {
+                if (pool == null && subscriptions.containsKey(redisID)) {
                     Debug.echoError(scriptEntry, "Cannot publish messages while subscribed to redis server with ID '" + redisID + "'!");
                     scriptEntry.setFinished(true);
                     return;
@@ -234,8 +449,7 @@ public class RedisHelper {
                 Debug.echoDebug(scriptEntry, "Publishing message '" + message.asString() + "' to channel '" + channel.asString() + "'");
                 Runnable doQuery = () -> {
                     try {
-                        ElementTag result = new ElementTag(con.publish(channel.asLowerString(), message.asString()));
-                        scriptEntry.saveObject("result", result);
+                        withConnection(pool, con, jedis -> scriptEntry.saveObject("result", new ElementTag(jedis.publish(channel.asLowerString(), message.asString()))));
                         scriptEntry.setFinished(true);
                     }
                     catch (final Exception ex) {
@@ -261,7 +475,7 @@ public class RedisHelper {
                     scriptEntry.setFinished(true);
                     return;
                 }
-                if (subscriptions.containsKey(redisID)) {
+                if (pool == null && subscriptions.containsKey(redisID)) {
                     Debug.echoError(scriptEntry, "Cannot run commands while subscribed to redis server with ID '" + redisID + "'!");
                     scriptEntry.setFinished(true);
                     return;
@@ -280,8 +494,37 @@ public class RedisHelper {
                             redisCommand = command.asString();
                             redisArgs = args.toArray(new String[0]);
                         }
-                        ObjectTag result = processResponse(con.sendCommand(() -> SafeEncoder.encode(redisCommand), redisArgs));
-                        scriptEntry.saveObject("result", result);
+                        withConnection(pool, con, jedis -> scriptEntry.saveObject("result", processResponse(jedis.sendCommand(() -> SafeEncoder.encode(redisCommand), redisArgs))));
+                        scriptEntry.setFinished(true);
+                    }
+                    catch (final Exception ex) {
+                        DenizenCore.runOnMainThread(() -> {
+                            Debug.echoError(scriptEntry, "Redis Exception: " + ex.getMessage());
+                            scriptEntry.setFinished(true);
+                            if (CoreConfiguration.debugVerbose) {
+                                Debug.echoError(scriptEntry, ex);
+                            }
+                        });
+                    }
+                };
+                if (scriptEntry.shouldWaitFor()) {
+                    runChecked(doQuery, scriptEntry);
+                }
+                else {
+                    doQuery.run();
+                }
+            }
+            else if (action.asString().equalsIgnoreCase("pipeline")) {
+                if (pool == null && subscriptions.containsKey(redisID)) {
+                    Debug.echoError(scriptEntry, "Cannot run commands while subscribed to redis server with ID '" + redisID + "'!");
+                    scriptEntry.setFinished(true);
+                    return;
+                }
+                List<String[]> commands = parseCommandList(pipelineCommands, scriptEntry);
+                Debug.echoDebug(scriptEntry, "Running " + (transaction ? "transaction" : "pipeline") + " of " + commands.size() + " commands");
+                Runnable doQuery = () -> {
+                    try {
+                        withConnection(pool, con, jedis -> scriptEntry.saveObject("result", runPipeline(jedis, commands, transaction, scriptEntry)));
                         scriptEntry.setFinished(true);
                     }
                     catch (final Exception ex) {
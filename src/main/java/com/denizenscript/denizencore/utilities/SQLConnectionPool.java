@@ -0,0 +1,199 @@
+package com.denizenscript.denizencore.utilities;
+
+import com.denizenscript.denizencore.objects.core.DurationTag;
+import com.denizenscript.denizencore.objects.core.ElementTag;
+import com.denizenscript.denizencore.objects.core.MapTag;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * A fixed set of worker threads that each own one database connection, fed by a bounded task queue.
+ * Because each connection is confined to its thread, connections and their cached prepared statements never need locking or checkout.
+ */
+public class SQLConnectionPool {
+
+    @FunctionalInterface
+    public interface ConnectionSupplier {
+
+        Connection get() throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface PooledTask {
+
+        void run(SQLWorkerThread worker) throws Exception;
+    }
+
+    public static class SQLWorkerThread extends Thread {
+
+        public final SQLConnectionPool pool;
+
+        public Connection connection;
+
+        /**
+         * Prepared statements for this thread's connection, keyed by SQL text, in least-recently-used order.
+         */
+        public final LinkedHashMap<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+        public SQLWorkerThread(SQLConnectionPool pool, Runnable runnable, String name) {
+            super(runnable, name);
+            this.pool = pool;
+            setDaemon(true);
+        }
+
+        /**
+         * Returns this thread's connection, opening a new one if there isn't one yet or the old one was closed.
+         */
+        public Connection getConnection() throws SQLException {
+            if (connection == null || connection.isClosed()) {
+                statements.clear();
+                connection = pool.supplier.get();
+            }
+            return connection;
+        }
+
+        /**
+         * Returns a prepared statement for the given SQL text on this thread's connection, reusing a cached one where possible.
+         */
+        public PreparedStatement prepare(String sql, boolean returnGeneratedKeys) throws SQLException {
+            Connection conn = getConnection();
+            String key = (returnGeneratedKeys ? "k:" : "q:") + sql;
+            PreparedStatement statement = statements.get(key);
+            if (statement != null && !statement.isClosed()) {
+                statement.clearParameters();
+                pool.statementCacheHits.increment();
+                return statement;
+            }
+            pool.statementCacheMisses.increment();
+            statement = returnGeneratedKeys ? conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS) : conn.prepareStatement(sql);
+            statements.put(key, statement);
+            if (statements.size() > Math.max(1, CoreConfiguration.sqlStatementCacheSize)) {
+                Iterator<PreparedStatement> iterator = statements.values().iterator();
+                PreparedStatement eldest = iterator.next();
+                iterator.remove();
+                try {
+                    eldest.close();
+                }
+                catch (SQLException ignored) {
+                }
+            }
+            return statement;
+        }
+
+        public void closeConnection() {
+            statements.clear();
+            if (connection != null) {
+                try {
+                    connection.close();
+                }
+                catch (SQLException ignored) {
+                }
+                connection = null;
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                super.run();
+            }
+            finally {
+                closeConnection();
+            }
+        }
+    }
+
+    public final String id;
+
+    public final int size;
+
+    public final ConnectionSupplier supplier;
+
+    public final ThreadPoolExecutor executor;
+
+    public final LongAdder completed = new LongAdder(), failed = new LongAdder(), rejected = new LongAdder(),
+            waitNanos = new LongAdder(), runNanos = new LongAdder(), statementCacheHits = new LongAdder(), statementCacheMisses = new LongAdder();
+
+    public SQLConnectionPool(String id, int size, int queueLimit, ConnectionSupplier supplier) {
+        this.id = id;
+        this.size = size;
+        this.supplier = supplier;
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueLimit),
+                (runnable) -> new SQLWorkerThread(this, runnable, "Denizen SQL '" + id + "' Thread " + threadCount.incrementAndGet()));
+    }
+
+    /**
+     * Queues a task to run on one of the pool's threads. Returns false if the queue is full.
+     * If the task throws, 'onError' is called on the worker thread, and the worker's connection is dropped if it's no longer valid.
+     */
+    public boolean submit(PooledTask task, Consumer<Throwable> onError) {
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                waitNanos.add(start - queuedAt);
+                SQLWorkerThread worker = (SQLWorkerThread) Thread.currentThread();
+                try {
+                    task.run(worker);
+                    completed.increment();
+                }
+                catch (Throwable ex) {
+                    failed.increment();
+                    try {
+                        if (worker.connection != null && !worker.connection.isValid(2)) {
+                            worker.closeConnection();
+                        }
+                    }
+                    catch (SQLException ignored) {
+                        worker.closeConnection();
+                    }
+                    onError.accept(ex);
+                }
+                finally {
+                    runNanos.add(System.nanoTime() - start);
+                }
+            });
+            return true;
+        }
+        catch (RejectedExecutionException ex) {
+            rejected.increment();
+            return false;
+        }
+    }
+
+    public MapTag getStats() {
+        long done = completed.sum() + failed.sum();
+        MapTag result = new MapTag();
+        result.putObject("size", new ElementTag(size));
+        result.putObject("active", new ElementTag(executor.getActiveCount()));
+        result.putObject("queued", new ElementTag(executor.getQueue().size()));
+        result.putObject("completed", new ElementTag(completed.sum()));
+        result.putObject("failed", new ElementTag(failed.sum()));
+        result.putObject("rejected", new ElementTag(rejected.sum()));
+        result.putObject("average_wait", new DurationTag(done == 0 ? 0 : waitNanos.sum() / (double) done / 1_000_000_000.0));
+        result.putObject("average_run", new DurationTag(done == 0 ? 0 : runNanos.sum() / (double) done / 1_000_000_000.0));
+        result.putObject("statement_cache_hits", new ElementTag(statementCacheHits.sum()));
+        result.putObject("statement_cache_misses", new ElementTag(statementCacheMisses.sum()));
+        return result;
+    }
+
+    /**
+     * Stops accepting new tasks. Already-queued tasks still run, after which the threads close their connections and exit.
+     */
+    public void close() {
+        executor.shutdown();
+    }
+}
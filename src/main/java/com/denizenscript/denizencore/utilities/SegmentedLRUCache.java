@@ -0,0 +1,146 @@
+package com.denizenscript.denizencore.utilities;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A size-bounded, thread-safe least-recently-used cache.
+ * Entries are split across a fixed set of independently locked segments (by key hash), so concurrent access from different threads rarely contends.
+ * Each segment evicts its own least-recently-used entry when it exceeds its share of the total capacity.
+ */
+public class SegmentedLRUCache<K, V> {
+
+    public static class Segment<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 3159123523457793070L;
+
+        public final SegmentedLRUCache<K, V> cache;
+
+        public Segment(SegmentedLRUCache<K, V> cache) {
+            super(16, 0.75f, true);
+            this.cache = cache;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() > cache.segmentCapacity) {
+                cache.evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public final String name;
+
+    public final Segment<K, V>[] segments;
+
+    public final int segmentMask;
+
+    public volatile int segmentCapacity;
+
+    public final LongAdder hits = new LongAdder(), misses = new LongAdder(), evictions = new LongAdder();
+
+    /**
+     * @param name the name of the cache, for stats output.
+     * @param segmentCount how many segments to split the cache into, rounded up to a power of two.
+     * @param maxSize the maximum total number of entries held across all segments.
+     */
+    @SuppressWarnings("unchecked")
+    public SegmentedLRUCache(String name, int segmentCount, int maxSize) {
+        this.name = name;
+        int count = 1;
+        while (count < segmentCount) {
+            count <<= 1;
+        }
+        segments = (Segment<K, V>[]) new Segment<?, ?>[count];
+        segmentMask = count - 1;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(this);
+        }
+        setMaxSize(maxSize);
+    }
+
+    public final Segment<K, V> segmentFor(Object key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[hash & segmentMask];
+    }
+
+    /**
+     * Changes the maximum total size. Segments that are now over capacity immediately evict their least-recently-used entries.
+     */
+    public void setMaxSize(int maxSize) {
+        int capacity = Math.max(1, maxSize / segments.length);
+        segmentCapacity = capacity;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                Iterator<K> keys = segment.keySet().iterator();
+                while (segment.size() > capacity && keys.hasNext()) {
+                    keys.next();
+                    keys.remove();
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    public int getMaxSize() {
+        return segmentCapacity * segments.length;
+    }
+
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        V result;
+        synchronized (segment) {
+            result = segment.get(key);
+        }
+        if (result == null) {
+            misses.increment();
+        }
+        else {
+            hits.increment();
+        }
+        return result;
+    }
+
+    public void put(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    public void remove(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public void resetStats() {
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+}
@@ -13,6 +13,7 @@ import org.yaml.snakeyaml.scanner.ScannerImpl;
 
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a YAML file.
@@ -101,6 +102,46 @@ public class YamlConfiguration {
     public Map<StringHolder, Object> contents;
     boolean dirty;
 
+    /**
+     * If this is a section of a larger document (from getConfigurationSection), the full document and the dotted path of this section within it.
+     * Changes made through the section are reported to the full document.
+     */
+    public YamlConfiguration root;
+    public String rootPath;
+
+    /**
+     * The maximum number of parent paths to remember in the path index, or 0 to disable the index.
+     * The index maps a dotted parent path (like "a.b" for "a.b.c") to the map that holds its children, so hot keys don't need to walk the tree on every get/set.
+     * Only enable this for documents that are only ever changed through this class, as editing the raw maps directly can leave the index stale.
+     */
+    public int pathIndexLimit = 0;
+
+    ConcurrentHashMap<String, Map<StringHolder, Object>> pathIndex;
+
+    Map<StringHolder, Object> indexedContents;
+
+    /**
+     * A copy of one map in the document, saved from the last snapshot and reused by the next one unless something in or under that map has changed since.
+     */
+    static class SnapshotNode {
+
+        Map<StringHolder, Object> source;
+
+        Map<String, Object> copy;
+
+        /**
+         * Saved copies of the map-valued entries of the source map.
+         */
+        HashMap<StringHolder, SnapshotNode> children;
+
+        boolean changed;
+    }
+
+    /**
+     * The saved copy of the whole document from the last snapshot, or null if no snapshot has been taken yet.
+     */
+    SnapshotNode snapshotRoot;
+
     /**
      * Use StringHolders instead of strings.
      */
@@ -180,6 +221,7 @@ public class YamlConfiguration {
         if (obj != null) {
             contents.remove(key);
             contents.put(key, obj);
+            markChanged(key.str, true);
         }
     }
 
@@ -216,35 +258,145 @@ public class YamlConfiguration {
 
     public void addAll(Map<StringHolder, Object> newContents) {
         contents.putAll(newContents);
+        for (StringHolder key : newContents.keySet()) {
+            markChanged(key.str, true);
+        }
     }
 
-    private Set<StringHolder> getKeysDeep(Map<StringHolder, Object> objs, String base) {
-        Set<StringHolder> strings = new LinkedHashSet<>();
-        for (Map.Entry<StringHolder, Object> obj : objs.entrySet()) {
-            strings.add(new StringHolder(base + obj.getKey()));
-            if (obj.getValue() instanceof Map) {
-                strings.addAll(getKeysDeep((Map<StringHolder, Object>) obj.getValue(), base + obj.getKey() + "."));
+    /**
+     * Records that the value at a dotted path has changed, so the next snapshot copies the maps along that path again.
+     * If 'structural' is true, a map may have been added to or removed from the tree, so the path index is cleared.
+     */
+    public void markChanged(String path, boolean structural) {
+        if (root != null) {
+            root.markChanged(rootPath.isEmpty() ? path : rootPath + "." + path, structural);
+            return;
+        }
+        SnapshotNode node = snapshotRoot;
+        if (node != null) {
+            node.changed = true;
+            for (String part : CoreUtilities.split(path, '.')) {
+                node = node.children.get(new StringHolder(part));
+                if (node == null) {
+                    break;
+                }
+                node.changed = true;
             }
         }
-        return strings;
+        if (structural && pathIndex != null) {
+            pathIndex.clear();
+        }
     }
 
-    public String saveToString(boolean patchLines) {
+    /**
+     * Returns the map holding the children of the given dotted parent path, or null if there isn't one.
+     */
+    public Map<StringHolder, Object> getParentMap(String parentPath) {
+        if (pathIndexLimit <= 0) {
+            Object parent = get(parentPath);
+            return parent instanceof Map ? (Map<StringHolder, Object>) parent : null;
+        }
+        if (pathIndex == null || indexedContents != contents) {
+            pathIndex = new ConcurrentHashMap<>();
+            indexedContents = contents;
+        }
+        String indexKey = CoreUtilities.toLowerCase(parentPath);
+        Map<StringHolder, Object> result = pathIndex.get(indexKey);
+        if (result != null) {
+            return result;
+        }
+        Object parent = get(parentPath, false);
+        if (!(parent instanceof Map)) {
+            return null;
+        }
+        result = (Map<StringHolder, Object>) parent;
+        if (pathIndex.size() >= pathIndexLimit) {
+            pathIndex.clear();
+        }
+        pathIndex.put(indexKey, result);
+        return result;
+    }
+
+    /**
+     * Returns a copy of the document's contents in the form used for saving, safe to dump to text on another thread.
+     * Maps with no changes in or under them since the last snapshot reuse the previous snapshot's copy,
+     * so a save after changing one entry of a large document only copies the maps along the path to that entry.
+     * The returned copy must not be modified, as parts of it may be shared with later snapshots.
+     */
+    public Map<String, Object> snapshot() {
+        snapshotRoot = snapshotMap(contents, snapshotRoot);
+        return snapshotRoot.copy;
+    }
+
+    static SnapshotNode snapshotMap(Map<StringHolder, Object> source, SnapshotNode previous) {
+        if (previous != null && previous.source == source && !previous.changed) {
+            return previous;
+        }
+        SnapshotNode node = new SnapshotNode();
+        node.source = source;
+        node.copy = new LinkedHashMap<>(source.size());
+        node.children = new HashMap<>();
+        boolean canReuse = previous != null && previous.source == source;
+        for (Map.Entry<StringHolder, Object> entry : source.entrySet()) {
+            StringHolder key = entry.getKey();
+            Object value = entry.getValue();
+            if (value instanceof Map) {
+                SnapshotNode child = snapshotMap((Map<StringHolder, Object>) value, canReuse ? previous.children.get(key) : null);
+                node.children.put(key, child);
+                node.copy.put(key.str, child.copy);
+            }
+            else if (value instanceof List) {
+                node.copy.put(key.str, reverseList((List) value, false));
+            }
+            else {
+                node.copy.put(key.str, value);
+            }
+        }
+        return node;
+    }
+
+    public static String dump(Map<String, Object> snapshot) {
         DumperOptions options = new DumperOptions();
         options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
         options.setAllowUnicode(true);
         Yaml yaml = new Yaml(options);
-        String dumped = yaml.dump(reverse(contents, patchLines));
+        String dumped = yaml.dump(snapshot);
         if (CoreConfiguration.debugVerbose) {
             Debug.log("Outputting " + dumped);
         }
         return dumped;
     }
 
+    private Set<StringHolder> getKeysDeep(Map<StringHolder, Object> objs, String base) {
+        Set<StringHolder> strings = new LinkedHashSet<>();
+        for (Map.Entry<StringHolder, Object> obj : objs.entrySet()) {
+            strings.add(new StringHolder(base + obj.getKey()));
+            if (obj.getValue() instanceof Map) {
+                strings.addAll(getKeysDeep((Map<StringHolder, Object>) obj.getValue(), base + obj.getKey() + "."));
+            }
+        }
+        return strings;
+    }
+
+    public String saveToString(boolean patchLines) {
+        return dump(reverse(contents, patchLines));
+    }
+
     public Object get(String path) {
+        return get(path, pathIndexLimit > 0);
+    }
+
+    public Object get(String path, boolean useIndex) {
         if (path.isEmpty()) {
             return contents;
         }
+        if (useIndex) {
+            int dot = path.lastIndexOf('.');
+            if (dot > 0) {
+                Map<StringHolder, Object> parent = getParentMap(path.substring(0, dot));
+                return parent == null ? null : parent.get(new StringHolder(path.substring(dot + 1)));
+            }
+        }
         List<String> parts = CoreUtilities.split(path, '.');
         Map<StringHolder, Object> portion = contents;
         for (int i = 0; i < parts.size(); i++) {
@@ -269,6 +421,19 @@ public class YamlConfiguration {
         if (o instanceof YamlConfiguration) {
             o = new LinkedHashMap<>(((YamlConfiguration) o).contents);
         }
+        if (pathIndexLimit > 0 && o != null && !(o instanceof Map)) {
+            int dot = path.lastIndexOf('.');
+            if (dot > 0) {
+                Map<StringHolder, Object> parent = getParentMap(path.substring(0, dot));
+                if (parent != null) {
+                    StringHolder key = new StringHolder(path.substring(dot + 1));
+                    Object old = parent.put(key, o);
+                    dirty = true;
+                    markChanged(path, old instanceof Map);
+                    return;
+                }
+            }
+        }
         List<String> parts = CoreUtilities.split(path, '.');
         Map<StringHolder, Object> portion = contents;
         for (int i = 0; i < parts.size(); i++) {
@@ -282,6 +447,7 @@ public class YamlConfiguration {
                     portion.put(new StringHolder(parts.get(i)), o);
                 }
                 dirty = true;
+                markChanged(path, o == null || o instanceof Map || oPortion instanceof Map);
                 return;
             }
             else if (oPortion == null) {
@@ -373,6 +539,8 @@ public class YamlConfiguration {
         }
         YamlConfiguration configuration = new YamlConfiguration();
         configuration.contents = (Map<StringHolder, Object>) o;
+        configuration.root = root == null ? this : root;
+        configuration.rootPath = root == null || rootPath.isEmpty() ? path : rootPath + "." + path;
         return configuration;
     }
 
@@ -6,8 +6,10 @@ import com.denizenscript.denizencore.tags.TagRunnable;
 import com.denizenscript.denizencore.utilities.ReflectionHelper;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
 import com.denizenscript.denizencore.utilities.debugging.DebugInternals;
+import com.denizenscript.denizencore.utilities.debugging.ExecutionProfiler;
 import org.objectweb.asm.*;
 
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 
 public class TagNamer {
@@ -20,8 +22,9 @@ public class TagNamer {
     public static final String OBJECT_INTERFACE_RUN_DESCRIPTOR = Type.getMethodDescriptor(OBJECT_INTERFACE_RUN_METHOD);
 
     public static <T extends ObjectTag, R extends ObjectTag> TagRunnable.ObjectInterface<T, R> nameTagInterface(Class<T> mainType, String tagName, TagRunnable.ObjectInterface<T, R> tag) {
-        String fullTagName = DebugInternals.getClassNameOpti(mainType) + "_" + tagName;
-        return (TagRunnable.ObjectInterface<T, R>) nameInternal(fullTagName, tag, OBJECT_INTERFACE_PATH, OBJECT_INTERFACE_DESCRIPTOR, true, OBJECT_INTERFACE_RUN_DESCRIPTOR);
+        String typeName = DebugInternals.getClassNameOpti(mainType);
+        String fullTagName = typeName + "_" + tagName;
+        return (TagRunnable.ObjectInterface<T, R>) nameInternal(fullTagName, typeName + "." + tagName, tag, OBJECT_INTERFACE_PATH, OBJECT_INTERFACE_DESCRIPTOR, true, OBJECT_INTERFACE_RUN_DESCRIPTOR, PROFILER_RUN_OBJECT_TAG_METHOD);
     }
 
     public static final String BASE_INTERFACE_PATH = Type.getInternalName(TagRunnable.BaseInterface.class);
@@ -30,10 +33,42 @@ public class TagNamer {
     public static final String BASE_INTERFACE_RUN_DESCRIPTOR = Type.getMethodDescriptor(BASE_NTERFACE_RUN_METHOD);
 
     public static <R extends ObjectTag> TagRunnable.BaseInterface<R> nameBaseInterface(String tagName, TagRunnable.BaseInterface<R> tag) {
-        return (TagRunnable.BaseInterface<R>) nameInternal("base_" + tagName, tag, BASE_INTERFACE_PATH, BASE_INTERFACE_DESCRIPTOR, false, BASE_INTERFACE_RUN_DESCRIPTOR);
+        return (TagRunnable.BaseInterface<R>) nameInternal("base_" + tagName, "<" + tagName + ">", tag, BASE_INTERFACE_PATH, BASE_INTERFACE_DESCRIPTOR, false, BASE_INTERFACE_RUN_DESCRIPTOR, PROFILER_RUN_BASE_TAG_METHOD);
     }
 
-    public static Object nameInternal(String fullTagName, Object tag, String typePath, String typeDescription, boolean hasObject, String runDescriptor) {
+    public static final Field PROFILER_ENABLED_FIELD = ReflectionHelper.getFields(ExecutionProfiler.class).get("enabled", boolean.class);
+    public static final Method PROFILER_RUN_OBJECT_TAG_METHOD = ReflectionHelper.getMethod(ExecutionProfiler.class, "runObjectTag", String.class, TagRunnable.ObjectInterface.class, Attribute.class, ObjectTag.class);
+    public static final Method PROFILER_RUN_BASE_TAG_METHOD = ReflectionHelper.getMethod(ExecutionProfiler.class, "runBaseTag", String.class, TagRunnable.BaseInterface.class, Attribute.class);
+
+    /**
+     * Generates the body of a named tag method: a direct call to the wrapped runnable, or a call through ExecutionProfiler while profiling is enabled.
+     */
+    public static void genRunBody(MethodGenerator gen, String className, String profileName, String typePath, String typeDescription, boolean hasObject, String runDescriptor, Method profileMethod) {
+        MethodGenerator.Local attributeLocal = gen.addLocal("attribute", Attribute.class);
+        MethodGenerator.Local objectLocal = gen.addLocal("object", ObjectTag.class);
+        Label directLabel = new Label();
+        gen.loadStaticField(PROFILER_ENABLED_FIELD);
+        gen.jumpIfFalseTo(directLabel);
+        gen.loadString(profileName);
+        gen.loadStaticField(className, "runnable", typeDescription);
+        gen.loadLocal(attributeLocal);
+        if (hasObject) {
+            gen.loadLocal(objectLocal);
+        }
+        gen.invokeStatic(profileMethod);
+        gen.returnValue(ObjectTag.class);
+        gen.advanceAndLabel(directLabel);
+        gen.loadStaticField(className, "runnable", typeDescription);
+        gen.loadLocal(attributeLocal);
+        if (hasObject) {
+            gen.loadLocal(objectLocal);
+        }
+        gen.invokeInterface(typePath, "run", runDescriptor);
+        gen.returnValue(ObjectTag.class);
+        gen.end();
+    }
+
+    public static Object nameInternal(String fullTagName, String profileName, Object tag, String typePath, String typeDescription, boolean hasObject, String runDescriptor, Method profileMethod) {
         try {
             // ====== Gen class ======
             String className = CodeGenUtil.CORE_GEN_PACKAGE + "Tags/Tag" + (tagsGenerated++) + "_" + CodeGenUtil.cleanName(fullTagName);
@@ -45,30 +80,12 @@ public class TagNamer {
             // ====== Gen 'staticRun' method ======
             {
                 MethodGenerator gen = MethodGenerator.generateMethod(className, cw, Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "staticRun", runDescriptor);
-                MethodGenerator.Local attributeLocal = gen.addLocal("attribute", Attribute.class);
-                MethodGenerator.Local objectLocal = gen.addLocal("object", ObjectTag.class);
-                gen.loadStaticField(className, "runnable", typeDescription);
-                gen.loadLocal(attributeLocal);
-                if (hasObject) {
-                    gen.loadLocal(objectLocal);
-                }
-                gen.invokeInterface(typePath, "run", runDescriptor);
-                gen.returnValue(ObjectTag.class);
-                gen.end();
+                genRunBody(gen, className, profileName, typePath, typeDescription, hasObject, runDescriptor, profileMethod);
             }
             // ====== Gen 'run' method ======
             {
                 MethodGenerator gen = MethodGenerator.generateMethod(className, cw, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL, "run", runDescriptor);
-                MethodGenerator.Local attributeLocal = gen.addLocal("attribute", Attribute.class);
-                MethodGenerator.Local objectLocal = gen.addLocal("object", ObjectTag.class);
-                gen.loadStaticField(className, "runnable", typeDescription);
-                gen.loadLocal(attributeLocal);
-                if (hasObject) {
-                    gen.loadLocal(objectLocal);
-                }
-                gen.invokeInterface(typePath, "run", runDescriptor);
-                gen.returnValue(ObjectTag.class);
-                gen.end();
+                genRunBody(gen, className, profileName, typePath, typeDescription, hasObject, runDescriptor, profileMethod);
             }
             // ====== Compile and return ======
             cw.visitEnd();
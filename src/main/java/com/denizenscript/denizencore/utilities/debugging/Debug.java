@@ -11,8 +11,8 @@ import java.util.Stack;
 
 public class Debug {
 
-    /** Current debug recording text, if recording enabled, for submission to paste server. */
-    public static StringBuilder debugRecording = new StringBuilder();
+    /** Current debug recording, if recording enabled, for submission to paste server. */
+    public static volatile DebugRecording debugRecording = null;
 
     /** Current main thread context, maintained automatically by stacked calls, for error handling. */
     public static TagContext currentContext = null;
@@ -66,14 +66,30 @@ public class Debug {
             Debug.echoError("Cannot start debug recording: forbidden by config.");
             return;
         }
+        DebugRecording oldRecording = debugRecording;
+        debugRecording = new DebugRecording();
+        if (oldRecording != null) {
+            oldRecording.close();
+        }
         CoreConfiguration.shouldRecordDebug = true;
-        debugRecording = new StringBuilder();
     }
 
     /** Stop debug recording, to cancel a startRecording. */
     public static void stopRecording() {
         CoreConfiguration.shouldRecordDebug = false;
-        debugRecording = new StringBuilder();
+        DebugRecording oldRecording = takeRecording();
+        if (oldRecording != null) {
+            oldRecording.close();
+        }
+    }
+
+    /** Stops debug recording and returns the recording (or null if there is none), for the caller to submit or save and then close. */
+    public static DebugRecording takeRecording() {
+        DebugOutputThread.flushIfRunning();
+        CoreConfiguration.shouldRecordDebug = false;
+        DebugRecording recording = debugRecording;
+        debugRecording = null;
+        return recording;
     }
 
     /**
@@ -211,7 +227,7 @@ public class Debug {
             return;
         }
         DenizenCore.runOnMainThread(() -> {
-            DebugInternals.echo("<W>" + DebugInternals.trimMessage(message), entry);
+            DebugInternals.echo("<W>", message, entry);
             if (CoreConfiguration.debugVerbose && entry != null) {
                 DebugInternals.echo("<LG>(Verbose) Caller = " + entry, entry);
             }
@@ -240,7 +256,7 @@ public class Debug {
         if (!CoreConfiguration.shouldShowDebug || !shouldDebug(caller)) {
             return;
         }
-        DenizenCore.runOnMainThread(() -> DebugInternals.echo("<Y>+> <G>Executing '<Y>" + name + "<G>': " + DebugInternals.trimMessage(message), caller));
+        DenizenCore.runOnMainThread(() -> DebugInternals.echo("<Y>+> <G>Executing '<Y>" + name + "<G>': ", message, caller));
     }
 
     /** Reports a command's output to debug, if debug is enabled for the entry. */
@@ -261,7 +277,7 @@ public class Debug {
                 output.append(obj);
             }
         }
-        DenizenCore.runOnMainThread(() -> DebugInternals.echo("<Y>+> <G>Executing '<Y>" + name + "<G>': " + DebugInternals.trimMessage(output.toString()), caller));
+        DenizenCore.runOnMainThread(() -> DebugInternals.echo("<Y>+> <G>Executing '<Y>" + name + "<G>': ", output.toString(), caller));
     }
 
     /** Returns truie if the debuggable object should output debug. */
@@ -15,8 +15,6 @@ import com.denizenscript.denizencore.tags.TagContext;
 import com.denizenscript.denizencore.utilities.CoreConfiguration;
 import com.denizenscript.denizencore.utilities.CoreUtilities;
 
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashSet;
@@ -275,11 +273,16 @@ public class DebugInternals {
 
     /** Internal debug method that handles checking whether the provided debuggable should submit to the debugger, and source tracking. */
     public static void echo(String string, Debuggable caller) {
+        echo(string, null, caller);
+    }
+
+    /** Internal debug method, as 'echo(String, Debuggable)', where 'untrimmed' (if non-null) is passed through 'trimMessage' and appended to 'string' at output time. */
+    public static void echo(String string, String untrimmed, Debuggable caller) {
         if (!Debug.shouldDebug(caller)) {
             return;
         }
         if (!CoreConfiguration.debugShowSources || caller == null) {
-            finalOutputDebugText(string, caller, true);
+            finalOutputDebugText(string, untrimmed, caller, true);
             return;
         }
         String callerId;
@@ -322,7 +325,7 @@ public class DebugInternals {
         else {
             callerId = caller.toString();
         }
-        finalOutputDebugText("<G>[Src:<LG>" + callerId + "<G>] <W>" + string, caller, true);
+        finalOutputDebugText("<G>[Src:<LG>" + callerId + "<G>] <W>" + string, untrimmed, caller, true);
     }
 
     /** Used to ratelimit debug output. */
@@ -336,6 +339,11 @@ public class DebugInternals {
 
     /** Internal final debug output called. Should generally not be called directly - instead use echoDebug, log, echoError, ... */
     public static void finalOutputDebugText(String message, Debuggable caller, boolean reformat) {
+        finalOutputDebugText(message, null, caller, reformat);
+    }
+
+    /** Internal final debug output called, where 'untrimmed' (if non-null) is passed through 'trimMessage' and appended to 'message'. Should generally not be called directly. */
+    public static void finalOutputDebugText(String message, String untrimmed, Debuggable caller, boolean reformat) {
         lastErrorHeader = "";
         outputThisTick++;
         if (outputThisTick >= CoreConfiguration.debugLimitPerTick) {
@@ -345,7 +353,7 @@ public class DebugInternals {
             return;
         }
         // 'Hack-fix' for disallowing multiple 'footers' to print in a row
-        if (message.equals("<LP>+---------------------+")) {
+        if (untrimmed == null && message.equals("<LP>+---------------------+")) {
             if (skipFooter) {
                 return;
             }
@@ -354,46 +362,74 @@ public class DebugInternals {
         else {
             skipFooter = false;
         }
+        if (CoreConfiguration.debugAsyncOutput && !DenizenCore.logInterceptor.redirected && getDebugSender(caller) == null) {
+            DebugOutputThread.get().enqueue(message, untrimmed, true, reformat, true);
+            return;
+        }
+        if (untrimmed != null) {
+            message = message + trimMessage(untrimmed);
+        }
         internalFinalOutputPath(DenizenCore.implementation.applyDebugColors(message), caller, reformat);
     }
 
-    /** Internal final debug output called. Should generally not be called directly - instead use echoDebug, log, echoError, ... */
-    public static void internalFinalOutputPath(String message, Debuggable caller, boolean reformat) {
-        message = message.replace('\0', ' ');
-        String formatted = message;
-        if (reformat) {
-            StringBuilder buffer = new StringBuilder();
-            int length = 0;
-            for (String word : CoreUtilities.split(formatted, ' ')) {
-                // # of total chars * # of lines - timestamp
-                int strippedLength = DenizenCore.implementation.stripColor(word).length() + 1;
-                if (length + strippedLength < CoreConfiguration.debugLineLength) {
-                    buffer.append(word).append(" ");
-                    length += strippedLength;
-                }
-                else {
-                    // Increase # of lines to account for
-                    length = strippedLength;
-                    // Leave spaces to account for timestamp and indent
-                    buffer.append("\n<FORCE_ALIGN>").append(word).append(" ");
-                }
-                if (word.contains("\n")) {
-                    length = 0;
-                }
-            }
-            formatted = buffer.toString();
+    /** Wraps long debug lines to the configured line length, if 'reformat' is true. Can be called from any thread. */
+    public static String formatOutput(String message, boolean reformat) {
+        if (!reformat) {
+            return message;
         }
-        // Record current buffer to the to-be-submitted buffer
-        if (CoreConfiguration.shouldRecordDebug) {
-            try {
-                //                                                         "HH:mm:ss"
-                String toRecord = " " + formatted.replace("<FORCE_ALIGN>", "        ")+ "\n";
-                Debug.debugRecording.append(URLEncoder.encode(debugRecordDateFormat.format(new Date()) + toRecord, StandardCharsets.UTF_8));
+        StringBuilder buffer = new StringBuilder();
+        int length = 0;
+        for (String word : CoreUtilities.split(message, ' ')) {
+            // # of total chars * # of lines - timestamp
+            int strippedLength = DenizenCore.implementation.stripColor(word).length() + 1;
+            if (length + strippedLength < CoreConfiguration.debugLineLength) {
+                buffer.append(word).append(" ");
+                length += strippedLength;
+            }
+            else {
+                // Increase # of lines to account for
+                length = strippedLength;
+                // Leave spaces to account for timestamp and indent
+                buffer.append("\n<FORCE_ALIGN>").append(word).append(" ");
             }
-            catch (Throwable ex) {
-                Debug.echoError(ex);
+            if (word.contains("\n")) {
+                length = 0;
             }
         }
+        return buffer.toString();
+    }
+
+    /** Records formatted debug output to the to-be-submitted buffer, if recording is enabled. Can be called from any thread. */
+    public static void recordOutput(String formatted) {
+        DebugRecording recording = Debug.debugRecording;
+        if (!CoreConfiguration.shouldRecordDebug || recording == null) {
+            return;
+        }
+        try {
+            //                                                         "HH:mm:ss"
+            String toRecord = " " + formatted.replace("<FORCE_ALIGN>", "        ")+ "\n";
+            String time;
+            synchronized (debugRecordDateFormat) {
+                time = debugRecordDateFormat.format(new Date());
+            }
+            recording.append(time + toRecord);
+        }
+        catch (Throwable ex) {
+            Debug.echoError(ex);
+        }
+    }
+
+    /** Internal final debug output called. Should generally not be called directly - instead use echoDebug, log, echoError, ... */
+    public static void internalFinalOutputPath(String message, Debuggable caller, boolean reformat) {
+        message = message.replace('\0', ' ');
+        // With async output, wrapping, recording and the final write are left to the output thread, so that line order is kept
+        DebugOutputThread asyncOutput = CoreConfiguration.debugAsyncOutput ? DebugOutputThread.get() : null;
+        String formatted = null;
+        if (asyncOutput == null) {
+            formatted = formatOutput(message, reformat);
+            // Record current buffer to the to-be-submitted buffer
+            recordOutput(formatted);
+        }
         if (DenizenCore.logInterceptor.redirected) {
             if (!DenizenCore.logInterceptor.antiLoop) {
                 DenizenCore.logInterceptor.antiLoop = true;
@@ -402,6 +438,9 @@ public class DebugInternals {
                     event.message = message;
                     event = (ConsoleOutputScriptEvent) event.fire();
                     if (event.cancelled) {
+                        if (asyncOutput != null) {
+                            asyncOutput.enqueue(message, null, false, reformat, false);
+                        }
                         return;
                     }
                 }
@@ -410,7 +449,12 @@ public class DebugInternals {
                 }
             }
         }
-        DenizenCore.implementation.doFinalDebugOutput(formatted);
+        if (asyncOutput != null) {
+            asyncOutput.enqueue(message, null, false, reformat, true);
+        }
+        else {
+            DenizenCore.implementation.doFinalDebugOutput(formatted);
+        }
         Consumer<String> additional = getDebugSender(caller);
         if (additional != null) {
             additional.accept(message);
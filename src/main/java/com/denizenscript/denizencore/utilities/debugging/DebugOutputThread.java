@@ -0,0 +1,198 @@
+package com.denizenscript.denizencore.utilities.debugging;
+
+import com.denizenscript.denizencore.DenizenCore;
+import com.denizenscript.denizencore.utilities.CoreConfiguration;
+import com.denizenscript.denizencore.utilities.CoreUtilities;
+
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Formats and writes debug output from a background thread, when enabled by 'CoreConfiguration.debugAsyncOutput'.
+ * Callers only queue the raw pieces of each line. Trimming, coloring, line wrapping, debug recording and the final write happen here, in the same order the lines were queued.
+ * If the queue fills up, 'CoreConfiguration.debugAsyncDropPolicy' decides what happens: "block" waits for room, "drop_newest" discards the new line, "drop_oldest" discards the oldest queued line.
+ */
+public class DebugOutputThread {
+
+    public static class QueuedLine {
+
+        public String prefix;
+
+        /**
+         * Text to append to the prefix after passing through 'trimMessage', or null if none.
+         */
+        public String untrimmed;
+
+        public boolean colorize, reformat;
+
+        /**
+         * If false, the line is only recorded (if recording is enabled), not output.
+         */
+        public boolean output = true;
+
+        /**
+         * If non-null, this is a flush marker rather than a line, and is counted down once every line queued before it is written.
+         */
+        public CountDownLatch flushed;
+    }
+
+    public static final int BATCH_SIZE = 256;
+
+    public static DebugOutputThread instance;
+
+    /**
+     * Returns the running output thread, starting it if needed.
+     */
+    public static synchronized DebugOutputThread get() {
+        if (instance == null) {
+            instance = new DebugOutputThread();
+            instance.start();
+        }
+        return instance;
+    }
+
+    /**
+     * Waits (briefly) for all currently queued lines to be written, if the output thread is running.
+     */
+    public static void flushIfRunning() {
+        DebugOutputThread current = instance;
+        if (current != null) {
+            current.flush();
+        }
+    }
+
+    /**
+     * Writes out everything already queued, then stops the output thread if it's running.
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.flush();
+            instance.running = false;
+            instance.thread.interrupt();
+            instance = null;
+        }
+    }
+
+    public final ArrayBlockingQueue<QueuedLine> queue = new ArrayBlockingQueue<>(Math.max(64, CoreConfiguration.debugAsyncQueueSize));
+
+    public final AtomicLong dropped = new AtomicLong();
+
+    public Thread thread;
+
+    public volatile boolean running = true;
+
+    public void start() {
+        thread = new Thread(this::run, "Denizen Debug Output");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void enqueue(String prefix, String untrimmed, boolean colorize, boolean reformat, boolean output) {
+        QueuedLine line = new QueuedLine();
+        line.prefix = prefix;
+        line.untrimmed = untrimmed;
+        line.colorize = colorize;
+        line.reformat = reformat;
+        line.output = output;
+        if (queue.offer(line)) {
+            return;
+        }
+        switch (CoreUtilities.toLowerCase(CoreConfiguration.debugAsyncDropPolicy)) {
+            case "drop_newest":
+                dropped.incrementAndGet();
+                break;
+            case "drop_oldest":
+                while (!queue.offer(line)) {
+                    QueuedLine removed = queue.poll();
+                    if (removed != null && removed.flushed != null) {
+                        removed.flushed.countDown();
+                    }
+                    else if (removed != null) {
+                        dropped.incrementAndGet();
+                    }
+                }
+                break;
+            default:
+                try {
+                    queue.put(line);
+                }
+                catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                break;
+        }
+    }
+
+    public void flush() {
+        if (Thread.currentThread() == thread) {
+            return;
+        }
+        QueuedLine marker = new QueuedLine();
+        marker.flushed = new CountDownLatch(1);
+        try {
+            if (queue.offer(marker, 5, TimeUnit.SECONDS)) {
+                marker.flushed.await(5, TimeUnit.SECONDS);
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void run() {
+        ArrayList<QueuedLine> batch = new ArrayList<>(BATCH_SIZE);
+        while (running) {
+            try {
+                batch.add(queue.take());
+            }
+            catch (InterruptedException ex) {
+                break;
+            }
+            queue.drainTo(batch, BATCH_SIZE - 1);
+            writeBatch(batch);
+            batch.clear();
+        }
+        queue.drainTo(batch);
+        writeBatch(batch);
+    }
+
+    public void writeBatch(ArrayList<QueuedLine> batch) {
+        long droppedCount = dropped.getAndSet(0);
+        if (droppedCount > 0) {
+            write(DenizenCore.implementation.applyDebugColors("<LR>... " + droppedCount + " debug lines dropped (debug output queue full) ..."), true, true);
+        }
+        for (QueuedLine line : batch) {
+            if (line.flushed != null) {
+                line.flushed.countDown();
+                continue;
+            }
+            try {
+                String message = line.untrimmed == null ? line.prefix : line.prefix + DebugInternals.trimMessage(line.untrimmed);
+                if (line.colorize) {
+                    message = DenizenCore.implementation.applyDebugColors(message).replace('\0', ' ');
+                }
+                write(message, line.reformat, line.output);
+            }
+            catch (Throwable ex) {
+                try {
+                    // Output directly rather than through Debug, which would just queue the error back onto this thread
+                    DenizenCore.implementation.doFinalDebugOutput(DenizenCore.implementation.applyDebugColors("<LR>Error writing debug output: <W>" + DebugInternals.getFullExceptionMessage(ex, false)));
+                }
+                catch (Throwable ex2) {
+                    // Nothing left to report to
+                }
+            }
+        }
+    }
+
+    public void write(String message, boolean reformat, boolean output) {
+        String formatted = DebugInternals.formatOutput(message, reformat);
+        DebugInternals.recordOutput(formatted);
+        if (output) {
+            DenizenCore.implementation.doFinalDebugOutput(formatted);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.denizenscript.denizencore.utilities.debugging;
+
+import com.denizenscript.denizencore.utilities.CoreConfiguration;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A debug recording, for submission to the paste server or saving to a local file.
+ * Only the newest 'CoreConfiguration.debugRecordingChunkSize' characters are held in memory. Older text is compressed into temporary chunk files.
+ * If 'CoreConfiguration.debugRecordingMaxSize' is set, the oldest chunks are deleted once the recording grows past it, so the recording keeps only the most recent output.
+ */
+public class DebugRecording {
+
+    public static class Chunk {
+
+        public File file;
+
+        public long size;
+    }
+
+    public final ArrayDeque<Chunk> chunks = new ArrayDeque<>();
+
+    public StringBuilder current = new StringBuilder();
+
+    /**
+     * Total size (in UTF-8 bytes) of text in chunk files, and of text that was dropped from the start of the recording.
+     */
+    public long spilledSize, droppedSize;
+
+    public File folder;
+
+    public int chunkCount;
+
+    public boolean closed;
+
+    public synchronized void append(String text) {
+        if (closed) {
+            return;
+        }
+        current.append(text);
+        if (current.length() >= Math.max(1024, CoreConfiguration.debugRecordingChunkSize)) {
+            try {
+                spill();
+            }
+            catch (IOException ex) {
+                closed = true;
+                Debug.echoError("Debug recording failed to write to temporary file, recording stopped.");
+                Debug.echoError(ex);
+            }
+        }
+    }
+
+    /**
+     * Compresses the in-memory text into a new chunk file, then drops the oldest chunks if the recording is over its maximum size.
+     */
+    public void spill() throws IOException {
+        if (folder == null) {
+            folder = Files.createTempDirectory("denizen-debug-recording").toFile();
+            folder.deleteOnExit();
+        }
+        Chunk chunk = new Chunk();
+        chunk.file = new File(folder, "chunk-" + (chunkCount++) + ".gz");
+        chunk.file.deleteOnExit();
+        byte[] data = current.toString().getBytes(StandardCharsets.UTF_8);
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(chunk.file), 64 * 1024)) {
+            out.write(data);
+        }
+        chunk.size = data.length;
+        chunks.add(chunk);
+        spilledSize += chunk.size;
+        current = new StringBuilder();
+        long maxSize = CoreConfiguration.debugRecordingMaxSize;
+        while (maxSize > 0 && spilledSize > maxSize && chunks.size() > 1) {
+            Chunk oldest = chunks.removeFirst();
+            oldest.file.delete();
+            spilledSize -= oldest.size;
+            droppedSize += oldest.size;
+        }
+    }
+
+    /**
+     * Returns the approximate total size of the recording, excluding any dropped text.
+     */
+    public synchronized long getSize() {
+        return spilledSize + current.length();
+    }
+
+    /**
+     * Opens a stream of the full recording text (as UTF-8), reading chunk files one at a time.
+     * The recording should not be appended to while the stream is open.
+     */
+    public synchronized InputStream openStream() {
+        byte[] header = droppedSize == 0 ? null : ("... (" + droppedSize + " bytes of older recorded output dropped) ...\n").getBytes(StandardCharsets.UTF_8);
+        byte[] currentData = current.toString().getBytes(StandardCharsets.UTF_8);
+        Iterator<Chunk> chunkIterator = new ArrayList<>(chunks).iterator();
+        return new InputStream() {
+            InputStream active;
+
+            boolean headerUsed, currentUsed;
+
+            InputStream nextPart() throws IOException {
+                if (!headerUsed) {
+                    headerUsed = true;
+                    if (header != null) {
+                        return new ByteArrayInputStream(header);
+                    }
+                }
+                if (chunkIterator.hasNext()) {
+                    return new GZIPInputStream(new FileInputStream(chunkIterator.next().file), 64 * 1024);
+                }
+                if (!currentUsed) {
+                    currentUsed = true;
+                    return new ByteArrayInputStream(currentData);
+                }
+                return null;
+            }
+
+            @Override
+            public int read() throws IOException {
+                byte[] single = new byte[1];
+                int count = read(single, 0, 1);
+                return count <= 0 ? -1 : (single[0] & 0xFF);
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                while (true) {
+                    if (active == null) {
+                        active = nextPart();
+                        if (active == null) {
+                            return -1;
+                        }
+                    }
+                    int count = active.read(buffer, offset, length);
+                    if (count > 0) {
+                        return count;
+                    }
+                    active.close();
+                    active = null;
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (active != null) {
+                    active.close();
+                    active = null;
+                }
+            }
+        };
+    }
+
+    /**
+     * Writes the full recording text to a local file.
+     */
+    public void saveTo(File file) throws IOException {
+        try (InputStream in = openStream(); OutputStream out = new FileOutputStream(file)) {
+            in.transferTo(out);
+        }
+    }
+
+    /**
+     * Writes the full recording text to the output stream, URL-encoded (as by URLEncoder) as it goes.
+     */
+    public void writeUrlEncoded(OutputStream out) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        byte[] encoded = new byte[buffer.length * 3];
+        try (InputStream in = openStream()) {
+            int count;
+            while ((count = in.read(buffer)) > 0) {
+                int outLength = 0;
+                for (int i = 0; i < count; i++) {
+                    int b = buffer[i] & 0xFF;
+                    if ((b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '.' || b == '-' || b == '*' || b == '_') {
+                        encoded[outLength++] = (byte) b;
+                    }
+                    else if (b == ' ') {
+                        encoded[outLength++] = '+';
+                    }
+                    else {
+                        encoded[outLength++] = '%';
+                        encoded[outLength++] = (byte) Character.toUpperCase(Character.forDigit(b >> 4, 16));
+                        encoded[outLength++] = (byte) Character.toUpperCase(Character.forDigit(b & 0xF, 16));
+                    }
+                }
+                out.write(encoded, 0, outLength);
+            }
+        }
+    }
+
+    /**
+     * Stops the recording and deletes its temporary files.
+     */
+    public synchronized void close() {
+        closed = true;
+        current = new StringBuilder();
+        for (Chunk chunk : chunks) {
+            chunk.file.delete();
+        }
+        chunks.clear();
+        if (folder != null) {
+            folder.delete();
+        }
+    }
+}
@@ -8,8 +8,7 @@ import com.denizenscript.denizencore.utilities.CoreConfiguration;
 import com.denizenscript.denizencore.utilities.CoreUtilities;
 import com.denizenscript.denizencore.utilities.scheduling.RepeatingSchedulable;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.*;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLEncoder;
@@ -32,7 +31,9 @@ public class DebugSubmitter extends Thread {
 
     public static String pasteURL = corePasteURL;
 
-    public String title, prefixContent, recording, result;
+    public String title, prefixContent, result;
+
+    public DebugRecording recording;
 
     public static void init() {
         debugHeaderLines.add(() -> "Java Version: " + System.getProperty("java.version"));
@@ -47,10 +48,12 @@ public class DebugSubmitter extends Thread {
             processResult.accept("disabled");
             return;
         }
-        CoreConfiguration.shouldRecordDebug = false;
         final DebugSubmitter submit = new DebugSubmitter();
-        submit.recording = Debug.debugRecording.toString();
-        Debug.debugRecording = new StringBuilder();
+        submit.recording = Debug.takeRecording();
+        if (submit.recording == null) {
+            processResult.accept("disabled");
+            return;
+        }
         submit.build();
         submit.start();
         RepeatingSchedulable schedulable = new RepeatingSchedulable(null, 0.25f);
@@ -63,6 +66,32 @@ public class DebugSubmitter extends Thread {
         DenizenCore.schedule(schedulable);
     }
 
+    /**
+     * Stops the current recording and saves it to a local file (off the main thread), then calls 'processResult' on the main thread with whether it saved.
+     */
+    public static void saveCurrentRecording(File file, Consumer<Boolean> processResult) {
+        DebugRecording recording = CoreConfiguration.shouldRecordDebug && CoreConfiguration.debugRecordingAllowed ? Debug.takeRecording() : null;
+        if (recording == null) {
+            processResult.accept(false);
+            return;
+        }
+        DenizenCore.runAsync(() -> {
+            boolean success = false;
+            try {
+                recording.saveTo(file);
+                success = true;
+            }
+            catch (Throwable ex) {
+                Debug.echoError(ex);
+            }
+            finally {
+                recording.close();
+            }
+            boolean result = success;
+            DenizenCore.runOnMainThread(() -> processResult.accept(result));
+        });
+    }
+
     public void build() {
         title = pasteTitleGetter.get();
         StringBuilder addedLines = new StringBuilder();
@@ -88,12 +117,17 @@ public class DebugSubmitter extends Thread {
             uc.setDoOutput(true);
             uc.setConnectTimeout(10000);
             uc.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+            // Stream the recording rather than having the whole request body buffered in memory
+            uc.setChunkedStreamingMode(64 * 1024);
             uc.connect();
             // Safely connected at this point
             // Create the final message pack and upload it
-            uc.getOutputStream().write(("pastetype=log"
+            OutputStream out = new BufferedOutputStream(uc.getOutputStream(), 64 * 1024);
+            out.write(("pastetype=log"
                     + "&response=micro&v=200&pastetitle=" + URLEncoder.encode(title, "UTF-8")
-                    + "&pastecontents=" + URLEncoder.encode(prefixContent + "\n", "UTF-8") + recording).getBytes(StandardCharsets.UTF_8));
+                    + "&pastecontents=" + URLEncoder.encode(prefixContent + "\n", "UTF-8")).getBytes(StandardCharsets.UTF_8));
+            recording.writeUrlEncoded(out);
+            out.flush();
             // Wait for a response from the server
             in = new BufferedReader(new InputStreamReader(uc.getInputStream()));
             // Record the response
@@ -108,6 +142,7 @@ public class DebugSubmitter extends Thread {
             Debug.echoError(e);
         }
         finally {
+            recording.close();
             try {
                 if (in != null) {
                     in.close();
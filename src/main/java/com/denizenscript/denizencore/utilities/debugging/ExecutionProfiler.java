@@ -0,0 +1,284 @@
+package com.denizenscript.denizencore.utilities.debugging;
+
+import com.denizenscript.denizencore.DenizenCore;
+import com.denizenscript.denizencore.objects.ObjectTag;
+import com.denizenscript.denizencore.objects.core.DurationTag;
+import com.denizenscript.denizencore.objects.core.ElementTag;
+import com.denizenscript.denizencore.objects.core.MapTag;
+import com.denizenscript.denizencore.scripts.ScriptEntry;
+import com.denizenscript.denizencore.tags.Attribute;
+import com.denizenscript.denizencore.tags.TagRunnable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+/**
+ * Opt-in profiler for tags and commands executed on the main thread.
+ * Aggregates call counts, total/self time and allocation estimates per tag name and per command line,
+ * and tracks a call tree that can be written out as flamegraph-compatible collapsed stacks.
+ * When disabled, the only cost is a check of the static 'enabled' field.
+ */
+public class ExecutionProfiler {
+
+    /**
+     * Referenced by TagNamer generated code.
+     */
+    public static volatile boolean enabled = false;
+
+    public static class Stats {
+
+        public final String name;
+
+        public long calls, totalNanos, selfNanos, allocatedBytes;
+
+        public Stats(String name) {
+            this.name = name;
+        }
+
+        public MapTag toMap() {
+            MapTag map = new MapTag();
+            map.putObject("calls", new ElementTag(calls));
+            map.putObject("total_time", new DurationTag(totalNanos / 1_000_000_000.0));
+            map.putObject("self_time", new DurationTag(selfNanos / 1_000_000_000.0));
+            map.putObject("allocated_bytes", new ElementTag(allocatedBytes));
+            return map;
+        }
+    }
+
+    public static class StackNode {
+
+        public final String name;
+
+        public final StackNode parent;
+
+        public final HashMap<String, StackNode> children = new HashMap<>();
+
+        public long selfNanos;
+
+        public StackNode(String name, StackNode parent) {
+            this.name = name;
+            this.parent = parent;
+        }
+
+        public StackNode getChild(String childName) {
+            StackNode child = children.get(childName);
+            if (child == null) {
+                child = new StackNode(childName, this);
+                children.put(childName, child);
+            }
+            return child;
+        }
+    }
+
+    public static class Frame {
+
+        public Stats stats;
+
+        public StackNode node;
+
+        public long startNanos, childNanos, startAllocated;
+    }
+
+    public static final HashMap<String, Stats> tagStats = new HashMap<>();
+
+    public static final HashMap<String, Stats> commandStats = new HashMap<>();
+
+    public static StackNode rootNode = new StackNode("root", null);
+
+    public static Frame[] frames = new Frame[64];
+
+    public static int depth = 0;
+
+    public static long startTimeMillis;
+
+    public static com.sun.management.ThreadMXBean allocationBean;
+
+    static {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            allocationBean = (com.sun.management.ThreadMXBean) bean;
+            if (!allocationBean.isThreadAllocatedMemorySupported() || !allocationBean.isThreadAllocatedMemoryEnabled()) {
+                allocationBean = null;
+            }
+        }
+    }
+
+    public static void start() {
+        reset();
+        startTimeMillis = DenizenCore.currentTimeMillis;
+        enabled = true;
+    }
+
+    public static void stop() {
+        enabled = false;
+    }
+
+    public static void reset() {
+        tagStats.clear();
+        commandStats.clear();
+        rootNode = new StackNode("root", null);
+        if (!enabled) {
+            depth = 0;
+        }
+    }
+
+    public static long currentAllocated() {
+        return allocationBean == null ? 0 : allocationBean.getCurrentThreadAllocatedBytes();
+    }
+
+    public static void enter(HashMap<String, Stats> statsMap, String name) {
+        if (depth == frames.length) {
+            Frame[] newFrames = new Frame[depth * 2];
+            System.arraycopy(frames, 0, newFrames, 0, depth);
+            frames = newFrames;
+        }
+        Frame frame = frames[depth];
+        if (frame == null) {
+            frame = new Frame();
+            frames[depth] = frame;
+        }
+        Stats stats = statsMap.get(name);
+        if (stats == null) {
+            stats = new Stats(name);
+            statsMap.put(name, stats);
+        }
+        frame.stats = stats;
+        frame.node = (depth == 0 ? rootNode : frames[depth - 1].node).getChild(name);
+        frame.childNanos = 0;
+        frame.startAllocated = currentAllocated();
+        depth++;
+        frame.startNanos = System.nanoTime();
+    }
+
+    public static void exit() {
+        long endNanos = System.nanoTime();
+        if (depth == 0) {
+            return;
+        }
+        Frame frame = frames[--depth];
+        long total = endNanos - frame.startNanos;
+        long self = total - frame.childNanos;
+        Stats stats = frame.stats;
+        stats.calls++;
+        stats.totalNanos += total;
+        stats.selfNanos += self;
+        if (allocationBean != null) {
+            stats.allocatedBytes += currentAllocated() - frame.startAllocated;
+        }
+        frame.node.selfNanos += self;
+        if (depth > 0) {
+            frames[depth - 1].childNanos += total;
+        }
+        frame.stats = null;
+        frame.node = null;
+    }
+
+    public static boolean shouldProfile() {
+        return enabled && Thread.currentThread() == DenizenCore.MAIN_THREAD;
+    }
+
+    /**
+     * Referenced by TagNamer generated code.
+     */
+    public static ObjectTag runObjectTag(String name, TagRunnable.ObjectInterface<ObjectTag, ObjectTag> runnable, Attribute attribute, ObjectTag object) {
+        if (!shouldProfile()) {
+            return runnable.run(attribute, object);
+        }
+        enter(tagStats, name);
+        try {
+            return runnable.run(attribute, object);
+        }
+        finally {
+            exit();
+        }
+    }
+
+    /**
+     * Referenced by TagNamer generated code.
+     */
+    public static ObjectTag runBaseTag(String name, TagRunnable.BaseInterface<ObjectTag> runnable, Attribute attribute) {
+        if (!shouldProfile()) {
+            return runnable.run(attribute);
+        }
+        enter(tagStats, name);
+        try {
+            return runnable.run(attribute);
+        }
+        finally {
+            exit();
+        }
+    }
+
+    public static String getCommandName(ScriptEntry entry) {
+        ScriptEntry.ScriptEntryInternal internal = entry.internal;
+        if (internal.profilerName == null) {
+            String scriptName = internal.script == null ? "(none)" : internal.script.getName();
+            internal.profilerName = scriptName + ":" + internal.lineNumber + " " + entry.getCommandName();
+        }
+        return internal.profilerName;
+    }
+
+    public static MapTag getStatsMap(HashMap<String, Stats> statsMap) {
+        MapTag result = new MapTag();
+        for (Stats stats : statsMap.values()) {
+            result.putObject(stats.name, stats.toMap());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the current profile results as a map of "tags" and "commands", each a map of name to call stats.
+     */
+    public static MapTag getResultsMap() {
+        MapTag result = new MapTag();
+        result.putObject("enabled", new ElementTag(enabled));
+        result.putObject("duration", new DurationTag((DenizenCore.currentTimeMillis - startTimeMillis) / 1000.0));
+        result.putObject("tags", getStatsMap(tagStats));
+        result.putObject("commands", getStatsMap(commandStats));
+        return result;
+    }
+
+    public static void appendCollapsed(StackNode node, String path, StringBuilder output) {
+        for (StackNode child : node.children.values()) {
+            String childPath = path == null ? child.name : path + ";" + child.name;
+            long micros = child.selfNanos / 1000;
+            if (micros > 0) {
+                output.append(childPath).append(' ').append(micros).append('\n');
+            }
+            appendCollapsed(child, childPath, output);
+        }
+    }
+
+    /**
+     * Returns the call tree in collapsed-stack format (one "frame;frame;frame self_microseconds" line per stack), as used by flamegraph tools.
+     */
+    public static String getCollapsedStacks() {
+        StringBuilder output = new StringBuilder();
+        appendCollapsed(rootNode, null, output);
+        return output.toString();
+    }
+
+    /**
+     * Writes the collapsed-stack output to a file in the Denizen data folder, under 'debug/profiles'. Name is limited to simple characters.
+     */
+    public static void saveCollapsedStacks(String fileName) {
+        String cleanName = fileName.replaceAll("[^a-zA-Z0-9_\\-]", "_");
+        File file = new File(DenizenCore.implementation.getDataFolder(), "debug/profiles/" + cleanName + ".collapsed");
+        String content = getCollapsedStacks();
+        DenizenCore.runAsync(() -> {
+            try {
+                file.getParentFile().mkdirs();
+                try (FileOutputStream stream = new FileOutputStream(file)) {
+                    stream.write(content.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            catch (Throwable ex) {
+                Debug.echoError(ex);
+            }
+        });
+    }
+}
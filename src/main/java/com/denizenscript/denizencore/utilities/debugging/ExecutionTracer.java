@@ -0,0 +1,336 @@
+package com.denizenscript.denizencore.utilities.debugging;
+
+import com.denizenscript.denizencore.DenizenCore;
+import com.denizenscript.denizencore.objects.core.ElementTag;
+import com.denizenscript.denizencore.objects.core.MapTag;
+import com.denizenscript.denizencore.scripts.ScriptEntry;
+import com.denizenscript.denizencore.scripts.queues.ScriptQueue;
+import com.denizenscript.denizencore.utilities.CoreConfiguration;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in tracer that records a timeline of engine activity (ticks, queues, commands, script events, slow tags, and async handoffs)
+ * and streams it to a file in the Chrome Trace Event JSON format, viewable in chrome://tracing, Perfetto, or similar tools.
+ * Callers only record raw timings into a bounded queue. All formatting and file writing happens on a separate writer thread.
+ * If the writer can't keep up, new events are dropped and counted rather than slowing down the caller.
+ * When disabled, the only cost is a check of the static 'enabled' field.
+ */
+public class ExecutionTracer {
+
+    public static volatile boolean enabled = false;
+
+    public static class TraceEvent {
+
+        /**
+         * The Chrome trace event phase: 'X' for a complete span, 'b'/'e' for async (queue) begin/end, 's'/'f' for flow (handoff) start/finish.
+         */
+        public char phase;
+
+        public String name, category, id;
+
+        public long timeNanos, durationNanos, threadId;
+
+        public String threadName;
+
+        /**
+         * Key/value pairs for the event 'args', or null if none.
+         */
+        public String[] args;
+
+        /**
+         * If true, this is not an event, and the writer thread should close the file and stop after this.
+         */
+        public boolean stop;
+    }
+
+    public static volatile ExecutionTracer instance;
+
+    public static final AtomicLong nextFlowId = new AtomicLong();
+
+    public final ArrayBlockingQueue<TraceEvent> queue = new ArrayBlockingQueue<>(Math.max(1024, CoreConfiguration.traceQueueSize));
+
+    public final AtomicLong dropped = new AtomicLong(), written = new AtomicLong();
+
+    public final long startNanos = System.nanoTime();
+
+    public final HashSet<Long> namedThreads = new HashSet<>();
+
+    public File file;
+
+    public Writer writer;
+
+    public Thread thread;
+
+    public boolean first = true;
+
+    /**
+     * Starts tracing to file "debug/traces/<name>.json" in the Denizen data folder, replacing any trace already in progress. Name is limited to simple characters.
+     */
+    public static synchronized void start(String fileName) {
+        stop();
+        String cleanName = fileName.replaceAll("[^a-zA-Z0-9_\\-]", "_");
+        File file = new File(DenizenCore.implementation.getDataFolder(), "debug/traces/" + cleanName + ".json");
+        ExecutionTracer tracer = new ExecutionTracer();
+        try {
+            file.getParentFile().mkdirs();
+            tracer.file = file;
+            tracer.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 64 * 1024);
+            tracer.writer.write("[\n");
+        }
+        catch (IOException ex) {
+            Debug.echoError("Failed to open execution trace file '" + file.getName() + "':");
+            Debug.echoError(ex);
+            return;
+        }
+        tracer.thread = new Thread(tracer::run, "Denizen Trace Writer");
+        tracer.thread.setDaemon(true);
+        tracer.thread.start();
+        instance = tracer;
+        enabled = true;
+    }
+
+    /**
+     * Stops tracing if it's running, writing out everything already recorded and closing the file.
+     */
+    public static synchronized void stop() {
+        enabled = false;
+        ExecutionTracer tracer = instance;
+        if (tracer == null) {
+            return;
+        }
+        instance = null;
+        TraceEvent stopEvent = new TraceEvent();
+        stopEvent.stop = true;
+        try {
+            if (!tracer.thread.isAlive()) {
+                return;
+            }
+            if (!tracer.queue.offer(stopEvent, 10, TimeUnit.SECONDS)) {
+                tracer.thread.interrupt();
+            }
+            tracer.thread.join(10_000);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static MapTag getStatus() {
+        ExecutionTracer tracer = instance;
+        MapTag result = new MapTag();
+        result.putObject("enabled", new ElementTag(enabled));
+        if (tracer != null) {
+            result.putObject("file", new ElementTag(tracer.file.getName(), true));
+            result.putObject("events_written", new ElementTag(tracer.written.get()));
+            result.putObject("events_dropped", new ElementTag(tracer.dropped.get()));
+        }
+        return result;
+    }
+
+    public static void record(char phase, String category, String name, String id, long timeNanos, long durationNanos, String... args) {
+        ExecutionTracer tracer = instance;
+        if (tracer == null) {
+            return;
+        }
+        Thread current = Thread.currentThread();
+        TraceEvent event = new TraceEvent();
+        event.phase = phase;
+        event.category = category;
+        event.name = name;
+        event.id = id;
+        event.timeNanos = timeNanos;
+        event.durationNanos = durationNanos;
+        event.threadId = current.getId();
+        event.threadName = current.getName();
+        event.args = args.length == 0 ? null : args;
+        if (!tracer.queue.offer(event)) {
+            tracer.dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records a complete span that started at 'startNanos' (from System.nanoTime) and ends now.
+     */
+    public static void span(String category, String name, long startNanos, String... args) {
+        record('X', category, name, null, startNanos, System.nanoTime() - startNanos, args);
+    }
+
+    public static void commandSpan(ScriptEntry entry, long startNanos) {
+        ScriptQueue queue = entry.getResidingQueue();
+        span("command", ExecutionProfiler.getCommandName(entry), startNanos, "queue", queue == null ? null : queue.id);
+    }
+
+    /**
+     * Records a tag span, if the tag took at least 'CoreConfiguration.traceTagThresholdMicros' to fill.
+     */
+    public static void tagSpan(String tag, long startNanos) {
+        long duration = System.nanoTime() - startNanos;
+        if (duration >= CoreConfiguration.traceTagThresholdMicros * 1000L) {
+            record('X', "tag", "<" + tag + ">", null, startNanos, duration);
+        }
+    }
+
+    public static void queueStarted(ScriptQueue queue) {
+        record('b', "queue", queue.id, queue.id, System.nanoTime(), 0, "script", queue.script == null ? null : queue.script.getName());
+    }
+
+    public static void queueStopped(ScriptQueue queue) {
+        record('e', "queue", queue.id, queue.id, System.nanoTime(), 0);
+    }
+
+    /**
+     * Wraps a task being handed off to another thread, so the trace shows a span for the task linked back to the point where it was handed off.
+     * Returns the task unchanged if tracing is disabled.
+     */
+    public static Runnable wrapHandoff(String name, Runnable task) {
+        if (!enabled) {
+            return task;
+        }
+        String flowId = String.valueOf(nextFlowId.incrementAndGet());
+        record('s', "handoff", name, flowId, System.nanoTime(), 0);
+        return () -> {
+            if (!enabled) {
+                task.run();
+                return;
+            }
+            long start = System.nanoTime();
+            record('f', "handoff", name, flowId, start, 0);
+            try {
+                task.run();
+            }
+            finally {
+                span("handoff", name, start);
+            }
+        };
+    }
+
+    public void run() {
+        try {
+            while (true) {
+                TraceEvent event = queue.poll(1, TimeUnit.SECONDS);
+                if (event == null) {
+                    writer.flush();
+                    continue;
+                }
+                if (event.stop) {
+                    break;
+                }
+                write(event);
+            }
+        }
+        catch (InterruptedException ex) {
+            // Ignore, close out below
+        }
+        catch (IOException ex) {
+            Debug.echoError("Failed to write execution trace file '" + file.getName() + "', trace stopped.");
+            Debug.echoError(ex);
+            enabled = false;
+        }
+        try {
+            long droppedCount = dropped.get();
+            if (droppedCount > 0) {
+                writer.write(",\n{\"ph\":\"i\",\"s\":\"g\",\"cat\":\"tracer\",\"name\":\"" + droppedCount + " events dropped (trace queue full)\",\"pid\":1,\"tid\":0,\"ts\":"
+                        + formatMicros(System.nanoTime() - startNanos) + "}");
+            }
+            writer.write("\n]\n");
+            writer.close();
+        }
+        catch (IOException ex) {
+            Debug.echoError(ex);
+        }
+    }
+
+    /**
+     * Formats a nanosecond time as microseconds with one decimal place. Negative times are treated as zero.
+     */
+    public static String formatMicros(long nanos) {
+        nanos = Math.max(0, nanos);
+        return (nanos / 1000) + "." + (nanos % 1000 / 100);
+    }
+
+    public void write(TraceEvent event) throws IOException {
+        if (event.timeNanos < startNanos) {
+            // Started before tracing did (eg the tick that started the trace), so trim spans to the trace start and drop anything else
+            if (event.phase != 'X' || event.timeNanos + event.durationNanos <= startNanos) {
+                return;
+            }
+            event.durationNanos -= startNanos - event.timeNanos;
+            event.timeNanos = startNanos;
+        }
+        if (namedThreads.add(event.threadId)) {
+            writeSeparator();
+            writer.write("{\"ph\":\"M\",\"name\":\"thread_name\",\"pid\":1,\"tid\":" + event.threadId + ",\"args\":{\"name\":");
+            writeString(event.threadName);
+            writer.write("}}");
+        }
+        writeSeparator();
+        writer.write("{\"ph\":\"");
+        writer.write(event.phase);
+        writer.write("\",\"cat\":\"");
+        writer.write(event.category);
+        writer.write("\",\"name\":");
+        writeString(event.name);
+        writer.write(",\"pid\":1,\"tid\":" + event.threadId + ",\"ts\":" + formatMicros(event.timeNanos - startNanos));
+        if (event.phase == 'X') {
+            writer.write(",\"dur\":" + formatMicros(event.durationNanos));
+        }
+        if (event.id != null) {
+            writer.write(",\"id\":");
+            writeString(event.id);
+        }
+        if (event.phase == 'f') {
+            writer.write(",\"bp\":\"e\"");
+        }
+        if (event.args != null) {
+            writer.write(",\"args\":{");
+            for (int i = 0; i + 1 < event.args.length; i += 2) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeString(event.args[i]);
+                writer.write(':');
+                writeString(event.args[i + 1]);
+            }
+            writer.write('}');
+        }
+        writer.write('}');
+        written.incrementAndGet();
+    }
+
+    public void writeSeparator() throws IOException {
+        if (first) {
+            first = false;
+        }
+        else {
+            writer.write(",\n");
+        }
+    }
+
+    public void writeString(String text) throws IOException {
+        if (text == null) {
+            writer.write("null");
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                writer.write('\\');
+                writer.write(c);
+            }
+            else if (c < 0x20) {
+                writer.write(String.format("\\u%04x", (int) c));
+            }
+            else {
+                writer.write(c);
+            }
+        }
+        writer.write('"');
+    }
+}
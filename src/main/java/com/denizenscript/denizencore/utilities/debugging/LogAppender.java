@@ -0,0 +1,318 @@
+package com.denizenscript.denizencore.utilities.debugging;
+
+import com.denizenscript.denizencore.scripts.ScriptEntry;
+import com.denizenscript.denizencore.utilities.CoreConfiguration;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends lines to script log files from a single writer thread.
+ * Each file is kept open with a buffered writer between lines, and lines are written in the order they were queued.
+ * Buffered output is flushed when the buffer fills, after a configurable interval, or when a waiting script entry needs it.
+ */
+public class LogAppender {
+
+    public static class LogLine {
+
+        public File file;
+
+        public String level, message;
+
+        public long time;
+
+        public boolean clear;
+
+        /**
+         * If non-null, the entry is marked finished once this line is written and flushed.
+         */
+        public ScriptEntry waiting;
+
+        /**
+         * If true, the writer thread stops after this line.
+         */
+        public boolean stop;
+    }
+
+    public static class OpenLog {
+
+        public File file;
+
+        public Writer writer;
+
+        public long size;
+
+        public String day;
+
+        public boolean dirty;
+    }
+
+    public static final LogLine STOP = new LogLine();
+
+    static {
+        STOP.stop = true;
+    }
+
+    public static LogAppender instance;
+
+    /**
+     * Returns the shared appender, starting it if it isn't running.
+     */
+    public static synchronized LogAppender get() {
+        if (instance == null) {
+            instance = new LogAppender();
+            instance.start();
+        }
+        return instance;
+    }
+
+    /**
+     * Stops the shared appender if it's running, writing out everything already queued first.
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.stop();
+            instance = null;
+        }
+    }
+
+    public final BlockingQueue<LogLine> queue = new ArrayBlockingQueue<>(Math.max(16, CoreConfiguration.logQueueLimit));
+
+    /**
+     * Open files by absolute path, in least-recently-used order. Only accessed from the writer thread.
+     */
+    public final LinkedHashMap<String, OpenLog> openLogs = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * How long to keep appending to a file after failing to rotate it, before trying to rotate it again.
+     */
+    public static final long ROTATE_RETRY_MILLIS = 60 * 1000;
+
+    /**
+     * Files (by absolute path) that recently failed to rotate, mapped to the time they may next be retried. Only accessed from the writer thread.
+     */
+    public final HashMap<String, Long> rotateRetryTimes = new HashMap<>();
+
+    public final SimpleDateFormat lineDateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss ");
+
+    public final SimpleDateFormat dayFormat = new SimpleDateFormat("yyyy-MM-dd");
+
+    public Thread thread;
+
+    public long lastFlush;
+
+    public void start() {
+        thread = new Thread(this::run, "Denizen Log Appender");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        try {
+            queue.put(STOP);
+            thread.join(10_000);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues a line to be written. If the queue is full, waits until there is room, so that no line is ever dropped.
+     */
+    public void append(LogLine line) {
+        try {
+            queue.put(line);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void run() {
+        lastFlush = System.currentTimeMillis();
+        try {
+            while (true) {
+                long interval = Math.max(1, CoreConfiguration.logFlushIntervalMillis);
+                LogLine line = queue.poll(interval, TimeUnit.MILLISECONDS);
+                if (line != null) {
+                    if (line.stop) {
+                        break;
+                    }
+                    write(line);
+                }
+                if (line == null || System.currentTimeMillis() - lastFlush >= interval) {
+                    flushAll();
+                }
+            }
+        }
+        catch (InterruptedException ex) {
+            // Ignore, close out below
+        }
+        LogLine remaining;
+        while ((remaining = queue.poll()) != null) {
+            if (!remaining.stop) {
+                write(remaining);
+            }
+        }
+        for (OpenLog log : openLogs.values()) {
+            closeQuietly(log);
+        }
+        openLogs.clear();
+    }
+
+    public void write(LogLine line) {
+        OpenLog log = null;
+        try {
+            String text = line.level == null ? line.message + "\n" : lineDateFormat.format(line.time) + "[" + line.level + "] " + line.message + "\n";
+            if (line.clear && line.message.isEmpty()) {
+                text = "";
+            }
+            int length = utf8Length(text);
+            if (line.clear) {
+                OpenLog existing = openLogs.remove(line.file.getAbsolutePath());
+                if (existing != null) {
+                    closeQuietly(existing);
+                }
+                log = open(line.file, false);
+            }
+            else {
+                log = openLogs.get(line.file.getAbsolutePath());
+                if (log == null) {
+                    log = open(line.file, true);
+                }
+                log = rotateIfNeeded(log, line.time, length);
+            }
+            log.writer.write(text);
+            log.size += length;
+            log.dirty = true;
+            if (line.waiting != null) {
+                log.writer.flush();
+                log.dirty = false;
+            }
+        }
+        catch (Throwable ex) {
+            if (log != null) {
+                openLogs.remove(log.file.getAbsolutePath());
+                closeQuietly(log);
+            }
+            Debug.echoError(line.waiting, "Error logging to file '" + line.file.getName() + "'...");
+            Debug.echoError(line.waiting, ex);
+        }
+        finally {
+            if (line.waiting != null) {
+                line.waiting.setFinished(true);
+            }
+        }
+    }
+
+    public OpenLog open(File file, boolean append) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        OpenLog log = new OpenLog();
+        log.file = file;
+        log.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, append), StandardCharsets.UTF_8), 64 * 1024);
+        log.size = append ? file.length() : 0;
+        log.day = dayFormat.format(append && file.exists() && file.length() > 0 ? file.lastModified() : System.currentTimeMillis());
+        openLogs.put(file.getAbsolutePath(), log);
+        if (openLogs.size() > Math.max(1, CoreConfiguration.logMaxOpenFiles)) {
+            Iterator<OpenLog> eldest = openLogs.values().iterator();
+            closeQuietly(eldest.next());
+            eldest.remove();
+        }
+        return log;
+    }
+
+    /**
+     * Returns the number of bytes the text takes up when written as UTF-8, without encoding it.
+     */
+    public static int utf8Length(String text) {
+        int length = text.length();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isSurrogate(c)) {
+                length++;
+            }
+            else if (c >= 0x800) {
+                length += 2;
+            }
+            else if (c >= 0x80) {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Moves the file aside and opens a fresh one if the line would push it past the size limit, or if the day has changed since it was started.
+     * If the file can't be moved, the failure is reported once and the file is kept open for appending, with rotation retried after ROTATE_RETRY_MILLIS.
+     */
+    public OpenLog rotateIfNeeded(OpenLog log, long time, int length) throws IOException {
+        long maxSize = CoreConfiguration.logRotateSizeBytes;
+        String today = dayFormat.format(time);
+        boolean bySize = maxSize > 0 && log.size > 0 && log.size + length > maxSize;
+        boolean byDate = CoreConfiguration.logRotateDaily && !today.equals(log.day);
+        if (!bySize && !byDate) {
+            return log;
+        }
+        String path = log.file.getAbsolutePath();
+        Long retryTime = rotateRetryTimes.get(path);
+        long now = System.currentTimeMillis();
+        if (retryTime != null && now < retryTime) {
+            return log;
+        }
+        openLogs.remove(path);
+        closeQuietly(log);
+        String base = log.file.getPath() + "." + log.day;
+        File target = new File(base);
+        for (int i = 2; target.exists(); i++) {
+            target = new File(base + "." + i);
+        }
+        if (!log.file.renameTo(target)) {
+            if (retryTime == null) {
+                Debug.echoError("Failed to rotate log file '" + log.file.getName() + "' to '" + target.getName() + "', will keep appending to it and retry later.");
+            }
+            rotateRetryTimes.put(path, now + ROTATE_RETRY_MILLIS);
+            OpenLog sameLog = open(log.file, true);
+            sameLog.day = log.day;
+            return sameLog;
+        }
+        rotateRetryTimes.remove(path);
+        OpenLog newLog = open(log.file, false);
+        newLog.day = today;
+        return newLog;
+    }
+
+    public void flushAll() {
+        for (OpenLog log : openLogs.values()) {
+            if (log.dirty) {
+                try {
+                    log.writer.flush();
+                    log.dirty = false;
+                }
+                catch (IOException ex) {
+                    Debug.echoError(ex);
+                }
+            }
+        }
+        lastFlush = System.currentTimeMillis();
+    }
+
+    public void closeQuietly(OpenLog log) {
+        try {
+            log.writer.close();
+        }
+        catch (IOException ex) {
+            Debug.echoError(ex);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.denizenscript.denizencore.utilities.debugging;
+
+import com.denizenscript.denizencore.DenizenCore;
+import com.denizenscript.denizencore.objects.core.DurationTag;
+import com.denizenscript.denizencore.objects.core.ElementTag;
+import com.denizenscript.denizencore.objects.core.MapTag;
+import com.denizenscript.denizencore.scripts.ScriptEntry;
+import com.denizenscript.denizencore.scripts.queues.ScriptEngine;
+import com.denizenscript.denizencore.utilities.CoreConfiguration;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Low-overhead sampling profiler for scripts.
+ * A background thread periodically reads the script entry stack published by ScriptEngine, and counts how often each stack of script lines is seen.
+ * Each window of samples is written as flamegraph-compatible collapsed stacks to "debug/profiles/sampled_<time>.collapsed", with the same line names and microsecond units as ExecutionProfiler output.
+ * Unlike ExecutionProfiler, the main thread does no extra work while sampling, so this is suitable for leaving on in production.
+ */
+public class ScriptSampler {
+
+    public static volatile ScriptSampler instance;
+
+    public static synchronized void start() {
+        stop();
+        ScriptSampler sampler = new ScriptSampler();
+        sampler.thread = new Thread(sampler::run, "Denizen Script Sampler");
+        sampler.thread.setDaemon(true);
+        sampler.thread.start();
+        instance = sampler;
+    }
+
+    /**
+     * Stops the sampler if it's running, writing out the partial current window.
+     */
+    public static synchronized void stop() {
+        ScriptSampler sampler = instance;
+        if (sampler == null) {
+            return;
+        }
+        instance = null;
+        sampler.running = false;
+        sampler.thread.interrupt();
+        try {
+            sampler.thread.join(10_000);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static MapTag getStatus() {
+        ScriptSampler sampler = instance;
+        MapTag result = new MapTag();
+        result.putObject("enabled", new ElementTag(sampler != null));
+        if (sampler != null) {
+            result.putObject("total_samples", new ElementTag(sampler.totalSamples));
+            result.putObject("script_samples", new ElementTag(sampler.scriptSamples));
+            result.putObject("window_samples", new ElementTag(sampler.windowSamples));
+            result.putObject("duration", new DurationTag((System.currentTimeMillis() - sampler.startTimeMillis) / 1000.0));
+            if (sampler.lastFile != null) {
+                result.putObject("last_file", new ElementTag(sampler.lastFile, true));
+            }
+        }
+        return result;
+    }
+
+    public volatile boolean running = true;
+
+    public Thread thread;
+
+    public final long startTimeMillis = System.currentTimeMillis();
+
+    public volatile long totalSamples, scriptSamples, windowSamples;
+
+    public volatile String lastFile;
+
+    /**
+     * Sample counts by collapsed stack for the current window. Only accessed from the sampler thread.
+     */
+    public HashMap<String, long[]> counts = new HashMap<>();
+
+    public final SimpleDateFormat fileDateFormat = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss");
+
+    public void run() {
+        long interval = Math.max(1, CoreConfiguration.scriptSamplerIntervalMillis);
+        long windowStart = System.currentTimeMillis();
+        StringBuilder stackBuilder = new StringBuilder();
+        while (running) {
+            try {
+                Thread.sleep(interval);
+            }
+            catch (InterruptedException ex) {
+                break;
+            }
+            sample(stackBuilder);
+            if (System.currentTimeMillis() - windowStart >= Math.max(1, CoreConfiguration.scriptSamplerWindowSeconds) * 1000L) {
+                writeWindow(windowStart, interval);
+                windowStart = System.currentTimeMillis();
+            }
+        }
+        writeWindow(windowStart, interval);
+    }
+
+    public void sample(StringBuilder stackBuilder) {
+        totalSamples++;
+        ScriptEntry[] stack = ScriptEngine.getEntryStack();
+        if (stack.length == 0) {
+            return;
+        }
+        stackBuilder.setLength(0);
+        for (ScriptEntry entry : stack) {
+            if (entry == null) {
+                continue;
+            }
+            if (stackBuilder.length() > 0) {
+                stackBuilder.append(';');
+            }
+            stackBuilder.append(ExecutionProfiler.getCommandName(entry));
+        }
+        if (stackBuilder.length() == 0) {
+            return;
+        }
+        scriptSamples++;
+        windowSamples++;
+        counts.computeIfAbsent(stackBuilder.toString(), (k) -> new long[1])[0]++;
+    }
+
+    public void writeWindow(long windowStart, long interval) {
+        if (counts.isEmpty()) {
+            windowSamples = 0;
+            return;
+        }
+        StringBuilder output = new StringBuilder();
+        for (Map.Entry<String, long[]> entry : counts.entrySet()) {
+            output.append(entry.getKey()).append(' ').append(entry.getValue()[0] * interval * 1000).append('\n');
+        }
+        counts = new HashMap<>();
+        windowSamples = 0;
+        File folder = new File(DenizenCore.implementation.getDataFolder(), "debug/profiles");
+        File file = new File(folder, "sampled_" + fileDateFormat.format(windowStart) + ".collapsed");
+        try {
+            folder.mkdirs();
+            try (FileOutputStream stream = new FileOutputStream(file)) {
+                stream.write(output.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            lastFile = file.getName();
+            deleteOldFiles(folder);
+        }
+        catch (Throwable ex) {
+            Debug.echoError("Failed to write script sampler output '" + file.getName() + "':");
+            Debug.echoError(ex);
+        }
+    }
+
+    /**
+     * Deletes the oldest sampler output files past 'CoreConfiguration.scriptSamplerMaxFiles', if set.
+     */
+    public void deleteOldFiles(File folder) {
+        int maxFiles = CoreConfiguration.scriptSamplerMaxFiles;
+        if (maxFiles <= 0) {
+            return;
+        }
+        File[] files = folder.listFiles((dir, name) -> name.startsWith("sampled_") && name.endsWith(".collapsed"));
+        if (files == null || files.length <= maxFiles) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> a.getName().compareTo(b.getName()));
+        for (int i = 0; i < files.length - maxFiles; i++) {
+            files[i].delete();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.denizenscript.denizencore.utilities.debugging;
+
+import com.denizenscript.denizencore.DenizenCore;
+import com.denizenscript.denizencore.events.core.MainThreadStallsScriptEvent;
+import com.denizenscript.denizencore.objects.core.ScriptTag;
+import com.denizenscript.denizencore.scripts.ScriptEntry;
+import com.denizenscript.denizencore.scripts.queues.ScriptEngine;
+import com.denizenscript.denizencore.scripts.queues.ScriptQueue;
+import com.denizenscript.denizencore.utilities.CoreConfiguration;
+
+import java.io.File;
+
+/**
+ * Watches for the main thread getting stuck in a single tick or a single queue run for longer than the configured thresholds
+ * ('CoreConfiguration.stallTickThresholdMillis' and 'CoreConfiguration.stallRevolveThresholdMillis').
+ * When a stall is detected, the running script line and the main thread's Java stack are written to "debug/stalls.log" (rotated like other script logs),
+ * and the "main thread stalls" script event is fired once the main thread is free again.
+ * The watchdog only observes, and never interrupts the stalled code. Each stall is reported once.
+ */
+public class StallWatchdog {
+
+    public static volatile boolean enabled = false;
+
+    /**
+     * The System.nanoTime of the start of the current tick or outermost queue revolve, or 0 if none is running.
+     */
+    public static volatile long tickStartNanos, revolveStartNanos;
+
+    public static volatile StallWatchdog instance;
+
+    public static synchronized void start() {
+        stop();
+        StallWatchdog watchdog = new StallWatchdog();
+        watchdog.thread = new Thread(watchdog::run, "Denizen Stall Watchdog");
+        watchdog.thread.setDaemon(true);
+        watchdog.thread.start();
+        instance = watchdog;
+        enabled = true;
+    }
+
+    /**
+     * Stops the watchdog if it's running, waiting for any stall report in progress to be written.
+     */
+    public static synchronized void stop() {
+        enabled = false;
+        revolveStartNanos = 0;
+        StallWatchdog watchdog = instance;
+        if (watchdog == null) {
+            return;
+        }
+        instance = null;
+        watchdog.running = false;
+        watchdog.thread.interrupt();
+        try {
+            watchdog.thread.join(10_000);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public volatile boolean running = true;
+
+    public Thread thread;
+
+    public long reportedTick, reportedRevolve;
+
+    public void run() {
+        while (running) {
+            long tickThreshold = Math.max(1, CoreConfiguration.stallTickThresholdMillis) * 1_000_000L;
+            long revolveThreshold = Math.max(1, CoreConfiguration.stallRevolveThresholdMillis) * 1_000_000L;
+            try {
+                Thread.sleep(Math.max(10, Math.min(tickThreshold, revolveThreshold) / 4_000_000L));
+            }
+            catch (InterruptedException ex) {
+                break;
+            }
+            long now = System.nanoTime();
+            long tickStart = tickStartNanos;
+            long revolveStart = revolveStartNanos;
+            if (revolveStart != 0 && revolveStart != reportedRevolve && now - revolveStart > revolveThreshold) {
+                reportedRevolve = revolveStart;
+                reportedTick = tickStart;
+                report("revolve", (now - revolveStart) / 1_000_000L);
+            }
+            else if (tickStart != 0 && tickStart != reportedTick && now - tickStart > tickThreshold) {
+                reportedTick = tickStart;
+                report("tick", (now - tickStart) / 1_000_000L);
+            }
+        }
+    }
+
+    public void report(String type, long durationMillis) {
+        try {
+            ScriptEntry[] entries = ScriptEngine.getEntryStack();
+            StackTraceElement[] javaStack = DenizenCore.MAIN_THREAD.getStackTrace();
+            ScriptEntry entry = entries.length == 0 ? null : entries[entries.length - 1];
+            ScriptQueue queue = entry == null ? null : entry.getResidingQueue();
+            ScriptTag script = entry == null ? null : entry.getScript();
+            int line = entry == null ? -1 : entry.internal.lineNumber;
+            String command = entry == null ? null : entry.getCommandName();
+            StringBuilder javaStackText = new StringBuilder();
+            for (StackTraceElement element : javaStack) {
+                javaStackText.append("  at ").append(element).append('\n');
+            }
+            StringBuilder message = new StringBuilder();
+            message.append("Main thread stalled in a single ").append(type).append(" for ").append(durationMillis).append("ms");
+            if (entry != null) {
+                message.append(" in queue '").append(queue == null ? "(none)" : queue.id).append("' running '").append(ExecutionProfiler.getCommandName(entry)).append("'");
+            }
+            message.append('\n');
+            if (entries.length > 1) {
+                message.append("Script stack:\n");
+                for (int i = entries.length - 1; i >= 0; i--) {
+                    if (entries[i] != null) {
+                        message.append("  ").append(ExecutionProfiler.getCommandName(entries[i])).append('\n');
+                    }
+                }
+            }
+            message.append("Java stack:\n").append(javaStackText);
+            LogAppender.LogLine logLine = new LogAppender.LogLine();
+            logLine.file = new File(DenizenCore.implementation.getDataFolder(), "debug/stalls.log");
+            logLine.level = "STALL";
+            logLine.message = message.toString();
+            logLine.time = System.currentTimeMillis();
+            LogAppender.get().append(logLine);
+            Debug.log("Stall Watchdog", "Main thread stalled in a single " + type + " for " + durationMillis + "ms"
+                    + (entry == null ? "" : " at " + ExecutionProfiler.getCommandName(entry)) + ", see 'debug/stalls.log' for details.");
+            String javaStackString = javaStackText.toString();
+            DenizenCore.runOnMainThread(() -> MainThreadStallsScriptEvent.instance.handle(type, durationMillis, queue, script, line, command, javaStackString));
+        }
+        catch (Throwable ex) {
+            Debug.echoError(ex);
+        }
+    }
+}